@@ -0,0 +1,351 @@
+package com.fom.rapidx.provider;
+
+import androidx.annotation.NonNull;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import java.util.Arrays;
+
+/**
+ * 18th Oct 2026.
+ * Positional changes from one {@link MediaSnapshot} list to the next, computed on background thread.
+ * <p>
+ * Media is matched by id and a matched media is changed if its date, size, name, path or folder differs.
+ * Media in longest run of unchanged order keeps its place, only others are moved.
+ * Operations are meant to be applied in order, like 'DiffUtil.DiffResult' of recyclerview:
+ * removals from end first, then insertions and moves from start and last changes at final positions.
+ * <p>
+ * If too many operations are needed, change set is a reload and the whole list should be refreshed.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class ChangeSet {
+
+    private static final int MAX_OPERATIONS = 1000;
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    private final long fromVersion;
+    private final boolean reload;
+    private final int[] operations; //type, position, count or target position
+    private final int size;
+
+    private ChangeSet(long fromVersion, boolean reload, int[] operations, int size) {
+        this.fromVersion = fromVersion;
+        this.reload = reload;
+        this.operations = operations;
+        this.size = size;
+    }
+
+    /**
+     * @return changes from old list to new list.
+     */
+    static ChangeSet between(long fromVersion, MediaObject[] oldList, MediaObject[] newList) {
+
+        int n = oldList.length;
+        int m = newList.length;
+
+        LongMap<Integer> positions = new LongMap<>(m);
+        long[] newIds = new long[m];
+
+        for (int i = 0; i < m; i++) {
+            newIds[i] = Media.parseId(newList[i]);
+            positions.put(newIds[i], i);
+        }
+
+        int[] targets = new int[n]; //new position of each old object or -1
+        boolean[] kept = new boolean[m]; //new objects which are in old list too
+
+        for (int i = 0; i < n; i++) {
+            Integer position = positions.get(Media.parseId(oldList[i]));
+            targets[i] = position == null ? -1 : position;
+            if (position != null) kept[position] = true;
+        }
+
+        boolean[] stable = stable(targets, m);
+        Builder builder = new Builder();
+
+        //removals, from end so earlier positions stay valid
+        for (int i = n - 1; i >= 0; i--) {
+            if (targets[i] != -1) continue;
+            int end = i;
+            while (i > 0 && targets[i - 1] == -1) i--;
+            if (!builder.add(REMOVE, i, end - i + 1)) return reload(fromVersion);
+        }
+
+        //remaining objects as their new positions
+        int[] current = new int[n + m];
+        int size = 0;
+        for (int target : targets) {
+            if (target != -1) current[size++] = target;
+        }
+
+        for (int t = 0; t < m; t++) {
+
+            if (size > t && current[t] == t) continue;
+
+            if (!kept[t]) {
+                int end = t;
+                while (end + 1 < m && !kept[end + 1]) end++;
+                int count = end - t + 1;
+                System.arraycopy(current, t, current, t + count, size - t);
+                for (int i = 0; i < count; i++) current[t + i] = t + i;
+                size += count;
+                if (!builder.add(INSERT, t, count)) return reload(fromVersion);
+                t = end;
+                continue;
+            }
+
+            if (stable[t] && !stable[current[t]]) {
+                //unstable object blocks a stable one, move it aside to end until its turn
+                int value = current[t];
+                System.arraycopy(current, t + 1, current, t, size - t - 1);
+                current[size - 1] = value;
+                if (!builder.add(MOVE, t, size - 1)) return reload(fromVersion);
+                t--;
+                continue;
+            }
+
+            int from = t;
+            while (current[from] != t) from++;
+            System.arraycopy(current, t, current, t + 1, from - t);
+            current[t] = t;
+            if (!builder.add(MOVE, from, t)) return reload(fromVersion);
+        }
+
+        //changes at final positions
+        for (int i = 0; i < n; i++) {
+            int target = targets[i];
+            if (target != -1 && isChanged(oldList[i], newList[target])) {
+                if (!builder.add(CHANGE, target, 1)) return reload(fromVersion);
+            }
+        }
+
+        return builder.build(fromVersion);
+    }
+
+    /**
+     * @return change set of objects inserted at position, like a page appended at the end.
+     */
+    static ChangeSet inserted(long fromVersion, int position, int count) {
+        Builder builder = new Builder();
+        if (count > 0) builder.add(INSERT, position, count);
+        return builder.build(fromVersion);
+    }
+
+    /**
+     * @return change set which asks to refresh whole list.
+     */
+    static ChangeSet reload(long fromVersion) {
+        return new ChangeSet(fromVersion, true, new int[0], 0);
+    }
+
+    /**
+     * @return flags of new positions which are in a longest increasing run of old order.
+     */
+    private static boolean[] stable(int[] targets, int m) {
+
+        int n = targets.length;
+        int[] tails = new int[n]; //index into targets of smallest tail of each run length
+        int[] previous = new int[n];
+        int length = 0;
+
+        for (int i = 0; i < n; i++) {
+
+            int target = targets[i];
+            if (target == -1) continue;
+
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (targets[tails[mid]] < target) low = mid + 1;
+                else high = mid;
+            }
+
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) length++;
+        }
+
+        boolean[] stable = new boolean[m];
+
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = previous[i]) {
+            stable[targets[i]] = true;
+        }
+
+        return stable;
+    }
+
+    /**
+     * @return true if a matched object is shown changed, same fields as {@link Media.MediaChanges}.
+     */
+    static boolean isChanged(MediaObject o1, MediaObject o2) {
+        return o1.date != o2.date
+                || o1.size != o2.size
+                || !equals(o1.name, o2.name)
+                || !equals(o1.uri, o2.uri)
+                || !equals(o1.bucketName, o2.bucketName);
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    /**
+     * Apply operations in order.
+     */
+    public void dispatchTo(@NonNull Callback callback) {
+        for (int i = 0; i < size; i += 3) {
+            int position = operations[i + 1];
+            int value = operations[i + 2];
+            switch (operations[i]) {
+                case INSERT:
+                    callback.onInserted(position, value);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(position, value);
+                    break;
+                case MOVE:
+                    callback.onMoved(position, value);
+                    break;
+                case CHANGE:
+                    callback.onChanged(position, value, null);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return version of snapshot these changes apply to, see {@link MediaSnapshot#getVersion()}.
+     */
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * @return true if whole list should be refreshed instead of applying operations.
+     */
+    public boolean isReload() {
+        return reload;
+    }
+
+    /**
+     * @return true if nothing changed.
+     */
+    public boolean isEmpty() {
+        return !reload && size == 0;
+    }
+
+    /**
+     * @return number of operations.
+     */
+    public int getOperationCount() {
+        return size / 3;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ChangeSet{" +
+                "fromVersion=" + fromVersion +
+                ", reload=" + reload +
+                ", operations=" + size / 3 +
+                '}';
+    }
+
+    /**
+     * Receiver of operations, same as 'ListUpdateCallback' of recyclerview
+     * so an adapter can forward them as they are.
+     */
+    public interface Callback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count, Object payload);
+    }
+
+    /**
+     * Collects operations, consecutive changes and adjacent insertions or removals are merged into a range.
+     * <p>
+     * Used to record operations as they are applied to a list as well, see {@link Media.SyncState}.
+     */
+    static final class Builder {
+
+        private int[] operations = new int[48];
+        private int size;
+
+        /**
+         * @return false if too many operations.
+         */
+        boolean insert(int position, int count) {
+            return add(INSERT, position, count);
+        }
+
+        /**
+         * @return false if too many operations.
+         */
+        boolean remove(int position, int count) {
+            return add(REMOVE, position, count);
+        }
+
+        /**
+         * @return false if too many operations.
+         */
+        boolean move(int from, int to) {
+            return add(MOVE, from, to);
+        }
+
+        /**
+         * @return false if too many operations.
+         */
+        boolean change(int position) {
+            return add(CHANGE, position, 1);
+        }
+
+        /**
+         * @return false if too many operations.
+         */
+        private boolean add(int type, int position, int value) {
+
+            if (size > 0 && operations[size - 3] == type) {
+
+                int last = operations[size - 2];
+                int count = operations[size - 1];
+
+                //range right after last changed or inserted range
+                if ((type == CHANGE || type == INSERT) && last + count == position) {
+                    operations[size - 1] += value;
+                    return true;
+                }
+
+                //range right before last removed range, like removals from end
+                if (type == REMOVE && position + value == last) {
+                    operations[size - 2] = position;
+                    operations[size - 1] += value;
+                    return true;
+                }
+            }
+
+            if (size / 3 == MAX_OPERATIONS) return false;
+
+            if (size == operations.length) operations = Arrays.copyOf(operations, size * 2);
+
+            operations[size++] = type;
+            operations[size++] = position;
+            operations[size++] = value;
+            return true;
+        }
+
+        ChangeSet build(long fromVersion) {
+            return new ChangeSet(fromVersion, false, operations, size);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.fom.rapidx.provider;
+
+import android.util.LruCache;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * 18th Oct 2026.
+ * Checks existence of files by listing their directory once instead of a file system call per file.
+ * <p>
+ * Listings are shared between scans and listed again only if modification time of directory
+ * changed. Shared listings are bounded by their total number of names, least recently used
+ * directories are dropped first. A directory which can not be listed, like on scoped storage without access,
+ * is treated as unknown and its files as existing.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+final class DirectoryCache {
+
+    private static final int MAX_NAMES = 50000;
+
+    private static final LruCache<String, Listing> listings = new LruCache<String, Listing>(MAX_NAMES) {
+
+        @Override
+        protected int sizeOf(String directory, Listing listing) {
+            return listing.names.size() + 1;
+        }
+    };
+
+    private final HashMap<String, Listing> checked = new HashMap<>(); //directories checked by this pass
+
+    /**
+     * @return false only if directory of path is listed and file is not in it.
+     */
+    boolean exists(String path) {
+
+        if (path == null || path.isEmpty()) return true;
+
+        int slash = path.lastIndexOf('/');
+
+        if (slash <= 0 || slash == path.length() - 1) return true;
+
+        String directory = path.substring(0, slash);
+        Listing listing = checked.get(directory);
+
+        if (listing == null) {
+            listing = list(directory);
+            checked.put(directory, listing);
+        }
+
+        return listing.names == null || listing.names.contains(path.substring(slash + 1));
+    }
+
+    /**
+     * @return cached listing of directory if it is not modified since, else a new listing.
+     */
+    private static Listing list(String directory) {
+
+        File file = new File(directory);
+        long modified = file.lastModified();
+
+        Listing cached = listings.get(directory);
+        if (cached != null && cached.modified == modified && modified != 0) return cached;
+
+        String[] names = modified == 0 ? null : file.list();
+        Listing listing = new Listing(modified, names);
+
+        if (names != null) listings.put(directory, listing);
+        else listings.remove(directory);
+
+        return listing;
+    }
+
+    private static final class Listing {
+
+        final long modified;
+        final HashSet<String> names; //null if directory is not listable
+
+        Listing(long modified, String[] names) {
+            this.modified = modified;
+            if (names == null) {
+                this.names = null;
+            } else {
+                this.names = new HashSet<>(names.length * 2);
+                Collections.addAll(this.names, names);
+            }
+        }
+    }
+}
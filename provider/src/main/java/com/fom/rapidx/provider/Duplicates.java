@@ -0,0 +1,366 @@
+package com.fom.rapidx.provider;
+
+import android.content.ContentUris;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.MediaStore;
+import android.util.LruCache;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+import com.fom.rapidx.provider.Media.MediaTask;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 18th Oct 2026.
+ * A class to find duplicate files among {@link Media} results.
+ * <p>
+ * Files are compared in three rounds, each only for files still colliding after previous one:
+ * same size, same hash of first and last block and same hash of whole file.
+ * Hashes are read using {@link FileChannel} on a bounded pool and cached by id, date and size,
+ * so files which are not modified are never read again. Rounds are coordinated on a thread of
+ * their own, so waiting for hashes never holds a thread of {@link Media} pool.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public class Duplicates {
+
+    private static final int BLOCK_SIZE = 16 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int POOL_KEEP_ALIVE_SECONDS = 30;
+
+    private static final LruCache<String, Hashes> cache = new LruCache<>(4096);
+    private static ThreadPoolExecutor executor;
+    private static ThreadPoolExecutor coordinator;
+
+    private Context context;
+
+    public Duplicates with(Context context) {
+        this.context = context;
+        return this;
+    }
+
+    /**
+     * Find duplicates of a {@link MediaSnapshot}.
+     *
+     * @return task to cancel finding or bind it to a lifecycle.
+     */
+    public MediaTask find(MediaSnapshot snapshot, DuplicateObserver observer) {
+        return find(snapshot.getList(), observer);
+    }
+
+    /**
+     * Find duplicates among media objects.
+     *
+     * @return task to cancel finding or bind it to a lifecycle.
+     */
+    public MediaTask find(List<MediaObject> objects, DuplicateObserver observer) {
+
+        if (context == null) {
+            throw new NullPointerException("Context should not be null. to fix add 'with()' method.");
+        }
+
+        MediaTask task = new MediaTask();
+        Handler handler = new Handler(Looper.getMainLooper());
+        ArrayList<MediaObject> copy = new ArrayList<>(objects);
+
+        coordinator().execute(() -> {
+
+            List<List<MediaObject>> groups = findGroups(copy, task);
+
+            handler.post(() -> {
+                task.finish();
+                if (observer == null) return;
+                if (task.isCancelled()) observer.onCancelled();
+                else observer.onComplete(groups);
+            });
+        });
+
+        return task;
+    }
+
+    /**
+     * @return groups of two or more equal files, largest files first.
+     */
+    private List<List<MediaObject>> findGroups(List<MediaObject> objects, MediaTask task) {
+
+        LongMap<ArrayList<MediaObject>> sizes = new LongMap<>(objects.size());
+
+        for (MediaObject object : objects) {
+            if (object.size <= 0) continue;
+            ArrayList<MediaObject> group = sizes.get(object.size);
+            if (group == null) sizes.put(object.size, group = new ArrayList<>(2));
+            group.add(object);
+        }
+
+        ArrayList<List<MediaObject>> candidates = new ArrayList<>();
+
+        for (long size : sizes.keys()) {
+            ArrayList<MediaObject> group = sizes.get(size);
+            if (group.size() > 1) candidates.add(group);
+        }
+
+        //files not larger than head and tail block are completely read by partial hash
+        candidates = split(candidates, task, false);
+        ArrayList<List<MediaObject>> large = new ArrayList<>();
+        ArrayList<List<MediaObject>> result = new ArrayList<>();
+
+        for (List<MediaObject> group : candidates) {
+            if (group.get(0).size > 2L * BLOCK_SIZE) large.add(group);
+            else result.add(group);
+        }
+
+        result.addAll(split(large, task, true));
+
+        if (task.isCancelled()) return Collections.emptyList();
+
+        Collections.sort(result, (g1, g2) -> Long.compare(g2.get(0).size, g1.get(0).size));
+
+        return result;
+    }
+
+    /**
+     * Split each group by hash of its files, files which can not be read are left out.
+     *
+     * @param full - true to hash whole file, else first and last block.
+     * @return groups of two or more files with same hash.
+     */
+    private ArrayList<List<MediaObject>> split(List<List<MediaObject>> groups, MediaTask task, boolean full) {
+
+        ArrayList<MediaObject> objects = new ArrayList<>();
+        for (List<MediaObject> group : groups) objects.addAll(group);
+
+        ArrayList<Callable<String>> jobs = new ArrayList<>(objects.size());
+        for (MediaObject object : objects) {
+            jobs.add(() -> task.isCancelled() ? null : hash(object, full, task));
+        }
+
+        ArrayList<List<MediaObject>> result = new ArrayList<>();
+
+        if (jobs.isEmpty() || task.isCancelled()) return result;
+
+        List<Future<String>> futures;
+
+        try {
+            futures = executor().invokeAll(jobs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result;
+        }
+
+        int index = 0;
+
+        for (List<MediaObject> group : groups) {
+
+            HashMap<String, List<MediaObject>> hashes = new HashMap<>();
+
+            for (MediaObject object : group) {
+                String hash = get(futures.get(index++));
+                if (hash == null) continue;
+                List<MediaObject> same = hashes.get(hash);
+                if (same == null) hashes.put(hash, same = new ArrayList<>(2));
+                same.add(object);
+            }
+
+            for (List<MediaObject> same : hashes.values()) {
+                if (same.size() > 1) result.add(same);
+            }
+        }
+
+        return result;
+    }
+
+    private static String get(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return cached or newly read hash of file, null if file can not be read or task is cancelled.
+     */
+    private String hash(MediaObject object, boolean full, MediaTask task) {
+
+        String key = object.id + ":" + object.date + ":" + object.size;
+        Hashes hashes;
+
+        //same file of concurrent tasks must share one entry to wait on
+        synchronized (cache) {
+            hashes = cache.get(key);
+            if (hashes == null) {
+                hashes = new Hashes();
+                cache.put(key, hashes);
+            }
+        }
+
+        //callers of a cached key wait for the one reading file instead of reading it again
+        synchronized (hashes) {
+
+            String hash = full ? hashes.full : hashes.partial;
+
+            if (hash != null) return hash;
+
+            try (FileInputStream stream = open(object)) {
+
+                FileChannel channel = stream.getChannel();
+                MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                ByteBuffer buffer = ByteBuffer.allocateDirect(full ? BUFFER_SIZE : BLOCK_SIZE);
+                long size = channel.size();
+
+                if (full) {
+                    if (!read(channel, digest, buffer, 0, size, task)) return null;
+                    hash = hashes.full = toHex(digest.digest());
+                } else {
+                    if (!read(channel, digest, buffer, 0, Math.min(size, BLOCK_SIZE), task)) return null;
+                    if (size > BLOCK_SIZE) {
+                        long from = Math.max(BLOCK_SIZE, size - BLOCK_SIZE);
+                        if (!read(channel, digest, buffer, from, size - from, task)) return null;
+                    }
+                    hash = hashes.partial = toHex(digest.digest());
+                }
+
+                return hash;
+
+            } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Open file by path, or by media store id if path is not accessible.
+     */
+    private FileInputStream open(MediaObject object) throws IOException {
+
+        try {
+            return new FileInputStream(object.uri);
+        } catch (IOException | RuntimeException e) {
+
+            ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(
+                    ContentUris.withAppendedId(MediaStore.Files.getContentUri("external"), Media.parseId(object)), "r");
+
+            if (descriptor == null) throw e;
+
+            return new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+        }
+    }
+
+    /**
+     * Feed given range of channel into digest, stops as soon as task is cancelled.
+     *
+     * @return false if task is cancelled, digest is incomplete then.
+     */
+    private static boolean read(FileChannel channel, MessageDigest digest, ByteBuffer buffer, long from, long length
+            , MediaTask task) throws IOException {
+
+        long position = from;
+        long end = from + length;
+
+        while (position < end) {
+            if (task.isCancelled()) return false;
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) break;
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+
+        return !task.isCancelled();
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * @return pool reading files, bounded to number of cores.
+     */
+    private static synchronized ExecutorService executor() {
+        if (executor == null) executor = newPool(POOL_SIZE, "RapidX-Hash-");
+        return executor;
+    }
+
+    /**
+     * @return single thread running rounds of each find one after another, it only waits for hashes.
+     */
+    private static synchronized ExecutorService coordinator() {
+        if (coordinator == null) coordinator = newPool(1, "RapidX-Duplicates-");
+        return coordinator;
+    }
+
+    private static ThreadPoolExecutor newPool(int size, String name) {
+
+        AtomicInteger count = new AtomicInteger();
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size
+                , POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS
+                , new LinkedBlockingQueue<>()
+                , runnable -> {
+            Thread thread = new Thread(runnable, name + count.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Cached hashes of a file version.
+     */
+    private static final class Hashes {
+        String partial;
+        String full;
+    }
+
+    /**
+     * Observer of {@link #find(List, DuplicateObserver)}, called on main thread.
+     */
+    public interface DuplicateObserver {
+
+        /**
+         * @param groups - groups of equal files, largest files first.
+         */
+        void onComplete(List<List<MediaObject>> groups);
+
+        /**
+         * Called instead of {@link #onComplete(List)} if task is cancelled.
+         */
+        default void onCancelled() {
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.fom.rapidx.provider;
+
+import android.app.PendingIntent;
+import android.app.RecoverableSecurityException;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.IntentSenderRequest;
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 18th Oct 2026.
+ * A class to copy, move, rename or delete many files at once.
+ * <p>
+ * File system work of each file runs in parallel on a bounded executor, media store work of all
+ * files is grouped afterwards into a few batched calls: one {@link ContentResolver#applyBatch}
+ * for deletes and a single {@link MediaStore#createDeleteRequest} or
+ * {@link MediaStore#createWriteRequest} for files which need user consent, so a whole selection
+ * asks for consent only once.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public class FileBatch {
+
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int POOL_KEEP_ALIVE_SECONDS = 30;
+    private static final int MAX_QUERY_ARGS = 500;
+    private static final long PROGRESS_INTERVAL_MILLIS = 100;
+    private static final int MAX_RESERVE_ATTEMPTS = 16;
+
+    private static ThreadPoolExecutor executor;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private ActivityResultLauncher<IntentSenderRequest> launcher;
+    private Executor callbackExecutor;
+
+    FileBatch(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Set launcher of consent requests, files which need consent fail without it.
+     */
+    public FileBatch launcher(ActivityResultLauncher<IntentSenderRequest> launcher) {
+        this.launcher = launcher;
+        return this;
+    }
+
+    /**
+     * Set executor to call {@link BatchCallback} on, main thread by default.
+     */
+    public FileBatch callbackOn(Executor executor) {
+        this.callbackExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Delete files and their media store entries.
+     * <p>
+     * Files which can not be deleted directly are deleted through media store,
+     * on R and above using a single {@link MediaStore#createDeleteRequest} for all of them,
+     * below R using a single {@link ContentResolver#applyBatch}.
+     * On Q an entry denied to this app asks consent which just grants access,
+     * so delete has to be called again after user accepts it.
+     *
+     * @param paths - file paths.
+     */
+    public BatchTask delete(Collection<String> paths, BatchCallback callback) {
+
+        ArrayList<Result> results = new ArrayList<>(paths.size());
+        for (String path : paths) results.add(new Result(path));
+
+        return run(results, result -> {
+            if (new File(result.path).delete()) result.status = Status.SUCCESS;
+        }, this::finishDelete, callback);
+    }
+
+    /**
+     * Copy files into directory, a file of same name gets a unique name.
+     */
+    public BatchTask copy(Collection<File> files, String directory, BatchCallback callback) {
+
+        ArrayList<Result> results = new ArrayList<>(files.size());
+        for (File file : files) results.add(new Result(file.getPath()));
+
+        Files.Utils utils = new Files.Utils();
+
+        return run(results, result -> {
+            File input = new File(result.path);
+            File output = reserve(new File(directory, input.getName()));
+            if (output == null) return;
+            if (utils.writeFile(input, output)) {
+                result.output = output.getPath();
+                result.status = Status.SUCCESS;
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                output.delete(); //reserved name
+            }
+        }, this::finishCopy, callback);
+    }
+
+    /**
+     * Move files into directory, a file of same name gets a unique name.
+     * Files on another storage volume are copied and deleted.
+     * On R and above write consent is asked for files which could not be moved,
+     * it only grants access, so move them again after user accepts it.
+     */
+    public BatchTask move(Collection<File> files, String directory, BatchCallback callback) {
+
+        ArrayList<Result> results = new ArrayList<>(files.size());
+        for (File file : files) results.add(new Result(file.getPath()));
+
+        Files.Utils utils = new Files.Utils();
+
+        return run(results, result -> {
+            File input = new File(result.path);
+            File output = reserve(new File(directory, input.getName()));
+            if (output == null) return;
+            if (input.renameTo(output) || (utils.writeFile(input, output) && input.delete())) {
+                result.output = output.getPath();
+                result.status = Status.SUCCESS;
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                output.delete(); //reserved name
+            }
+        }, this::finishMove, callback);
+    }
+
+    /**
+     * Rename files in their directory, extension is kept if new name has none.
+     *
+     * On R and above write consent is asked for files which could not be renamed,
+     * it only grants access, so rename them again after user accepts it.
+     *
+     * @param names - file and its new name.
+     */
+    public BatchTask rename(Map<File, String> names, BatchCallback callback) {
+
+        ArrayList<Result> results = new ArrayList<>(names.size());
+        HashMap<String, String> renames = new HashMap<>();
+
+        for (Map.Entry<File, String> entry : names.entrySet()) {
+            results.add(new Result(entry.getKey().getPath()));
+            renames.put(entry.getKey().getPath(), entry.getValue());
+        }
+
+        return run(results, result -> {
+            File input = new File(result.path);
+            String name = renames.get(result.path);
+            String extension = input.getName().lastIndexOf('.') > 0
+                    ? input.getName().substring(input.getName().lastIndexOf('.'))
+                    : "";
+            if (name.lastIndexOf('.') <= 0) name += extension;
+            File output = reserve(new File(input.getParentFile(), name));
+            if (output == null) return;
+            if (input.renameTo(output)) {
+                result.output = output.getPath();
+                result.status = Status.SUCCESS;
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                output.delete(); //reserved name
+            }
+        }, this::finishMove, callback);
+    }
+
+    /**
+     * Run job of each result in parallel and finish all results once every job is done.
+     */
+    private BatchTask run(List<Result> results, Job job, Finisher finisher, BatchCallback callback) {
+
+        BatchTask task = new BatchTask();
+        Executor callbacks = callbackExecutor != null ? callbackExecutor : handler::post;
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(results.size());
+        int total = results.size();
+        long[] lastProgress = {0};
+
+        Runnable finish = () -> {
+            for (Result result : results) {
+                if (!result.started) result.status = Status.CANCELLED;
+            }
+            finisher.finish(results, task);
+            List<Result> list = Collections.unmodifiableList(results);
+            callbacks.execute(() -> {
+                task.done = true;
+                if (callback != null) callback.onComplete(list);
+            });
+        };
+
+        if (results.isEmpty()) {
+            executor().execute(finish);
+            return task;
+        }
+
+        for (Result result : results) {
+            executor().execute(() -> {
+
+                if (!task.isCancelled()) {
+                    result.started = true;
+                    try {
+                        job.run(result);
+                    } catch (RuntimeException e) {
+                        result.message = e.getMessage();
+                    }
+                }
+
+                int count = done.incrementAndGet();
+
+                if (callback != null) {
+                    long now = SystemClock.elapsedRealtime();
+                    boolean report;
+                    synchronized (lastProgress) {
+                        report = count == total || now - lastProgress[0] >= PROGRESS_INTERVAL_MILLIS;
+                        if (report) lastProgress[0] = now;
+                    }
+                    if (report) callbacks.execute(() -> callback.onProgress(count, total));
+                }
+
+                if (remaining.decrementAndGet() == 0) finish.run();
+            });
+        }
+
+        return task;
+    }
+
+    /**
+     * Remove entries of deleted files and delete the others through media store.
+     */
+    private void finishDelete(List<Result> results, BatchTask task) {
+
+        ContentResolver resolver = context.getContentResolver();
+        ArrayList<String> deleted = new ArrayList<>();
+        ArrayList<Result> failed = new ArrayList<>();
+
+        for (Result result : results) {
+            if (result.status == Status.SUCCESS) deleted.add(result.path);
+            else if (result.status == Status.FAILED) failed.add(result);
+            NameAllocator.invalidate(result.path); //deleted here or through media store below
+        }
+
+        MediaRegistrar.getInstance(context).delete(deleted);
+
+        if (failed.isEmpty()) return;
+
+        HashMap<String, Uri> uris = findUris(failed);
+        ArrayList<Result> owned = new ArrayList<>();
+
+        for (Result result : failed) {
+            if (uris.containsKey(result.path)) owned.add(result);
+            else result.message = "File not exist";
+        }
+
+        if (owned.isEmpty()) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            requestConsent(owned, uris, true);
+            return;
+        }
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(owned.size());
+        for (Result result : owned) {
+            operations.add(ContentProviderOperation.newDelete(uris.get(result.path)).build());
+        }
+
+        try {
+
+            ContentProviderResult[] applied = resolver.applyBatch(MediaStore.AUTHORITY, operations);
+
+            for (int i = 0; i < owned.size(); i++) {
+                Integer count = applied[i].count;
+                if (count != null && count > 0) owned.get(i).status = Status.SUCCESS;
+                else owned.get(i).message = "Entry not deleted";
+            }
+
+        } catch (SecurityException e) {
+
+            //batch stops at denied entry, entries before it are already deleted
+            HashMap<String, Uri> remaining = findUris(owned);
+            ArrayList<Result> denied = new ArrayList<>();
+
+            for (Result result : owned) {
+                if (remaining.containsKey(result.path)) denied.add(result);
+                else result.status = Status.SUCCESS;
+            }
+
+            if (denied.isEmpty()) return;
+
+            PendingIntent intent = null;
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && e instanceof RecoverableSecurityException) {
+                intent = ((RecoverableSecurityException) e).getUserAction().getActionIntent();
+            }
+
+            launch(intent, denied, e.getMessage());
+
+        } catch (RemoteException | OperationApplicationException e) {
+            for (Result result : owned) result.message = e.getMessage();
+        }
+    }
+
+    /**
+     * Scan copied files in one batch.
+     */
+    private void finishCopy(List<Result> results, BatchTask task) {
+
+        ArrayList<String> copied = new ArrayList<>();
+
+        for (Result result : results) {
+            if (result.status == Status.SUCCESS) copied.add(result.output);
+        }
+
+        MediaRegistrar.getInstance(context).register(copied);
+    }
+
+    /**
+     * Remove entries of moved or renamed files, scan them at new path
+     * and ask write consent for files which could not be moved, caller retries them once granted.
+     */
+    private void finishMove(List<Result> results, BatchTask task) {
+
+        ArrayList<String> moved = new ArrayList<>();
+        ArrayList<String> outputs = new ArrayList<>();
+        ArrayList<Result> failed = new ArrayList<>();
+
+        for (Result result : results) {
+            if (result.status == Status.SUCCESS) {
+                moved.add(result.path);
+                outputs.add(result.output);
+            } else if (result.status == Status.FAILED && new File(result.path).exists()) {
+                failed.add(result);
+            }
+        }
+
+        MediaRegistrar registrar = MediaRegistrar.getInstance(context);
+        registrar.delete(moved);
+        NameAllocator.invalidate(moved);
+        registrar.register(outputs);
+
+        if (!failed.isEmpty() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            HashMap<String, Uri> uris = findUris(failed);
+            ArrayList<Result> owned = new ArrayList<>();
+            for (Result result : failed) {
+                if (uris.containsKey(result.path)) owned.add(result);
+            }
+            if (!owned.isEmpty()) requestConsent(owned, uris, false);
+        }
+    }
+
+    /**
+     * @return media store uri of each result path which has an entry.
+     */
+    private HashMap<String, Uri> findUris(List<Result> results) {
+
+        HashMap<String, Uri> uris = new HashMap<>();
+        Uri files = MediaStore.Files.getContentUri("external");
+        ContentResolver resolver = context.getContentResolver();
+
+        for (int from = 0; from < results.size(); from += MAX_QUERY_ARGS) {
+
+            int to = Math.min(results.size(), from + MAX_QUERY_ARGS);
+            String[] args = new String[to - from];
+            for (int i = from; i < to; i++) args[i - from] = results.get(i).path;
+
+            try (Cursor cursor = resolver.query(files
+                    , new String[]{MediaStore.MediaColumns._ID, MediaStore.MediaColumns.DATA}
+                    , in(MediaStore.MediaColumns.DATA, args.length)
+                    , args
+                    , null)) {
+
+                if (cursor == null) continue;
+
+                int idIndex = cursor.getColumnIndex(MediaStore.MediaColumns._ID);
+                int dataIndex = cursor.getColumnIndex(MediaStore.MediaColumns.DATA);
+
+                while (cursor.moveToNext()) {
+                    uris.put(cursor.getString(dataIndex), ContentUris.withAppendedId(files, cursor.getLong(idIndex)));
+                }
+            }
+        }
+
+        return uris;
+    }
+
+    /**
+     * Ask user consent for all results at once.
+     *
+     * @param delete - true for delete consent, else write consent.
+     */
+    private void requestConsent(List<Result> results, HashMap<String, Uri> uris, boolean delete) {
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return;
+
+        ArrayList<Uri> collection = new ArrayList<>(results.size());
+        for (Result result : results) collection.add(uris.get(result.path));
+
+        ContentResolver resolver = context.getContentResolver();
+        PendingIntent intent = delete
+                ? MediaStore.createDeleteRequest(resolver, collection)
+                : MediaStore.createWriteRequest(resolver, collection);
+
+        launch(intent, results, "Consent required");
+    }
+
+    /**
+     * Launch consent request on main thread and mark results as waiting for it.
+     */
+    private void launch(PendingIntent intent, List<Result> results, String message) {
+
+        if (intent == null || launcher == null) {
+            for (Result result : results) result.message = message;
+            return;
+        }
+
+        for (Result result : results) result.status = Status.CONSENT_REQUIRED;
+
+        IntentSenderRequest request = new IntentSenderRequest.Builder(intent.getIntentSender()).build();
+        handler.post(() -> launcher.launch(request));
+    }
+
+    /**
+     * Create an empty file of a name which is not used yet, so parallel jobs never pick same name.
+     * A name created by another job meanwhile is allocated again.
+     *
+     * @return reserved file or null if directory is not writable.
+     */
+    private static File reserve(File file) {
+        try {
+            for (int i = 0; i < MAX_RESERVE_ATTEMPTS; i++) {
+                File unique = new File(new Files.Utils().getUniqueFileName(file.getPath()));
+                if (unique.createNewFile()) return unique;
+            }
+            return null;
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return selection of column in given number of arguments.
+     */
+    private static String in(String column, int count) {
+        StringBuilder builder = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < count; i++) builder.append(i == 0 ? "?" : ",?");
+        return builder.append(')').toString();
+    }
+
+    /**
+     * @return executor of batch jobs, bounded so a large batch doesn't flood disk.
+     */
+    private static synchronized ExecutorService executor() {
+
+        if (executor == null) {
+
+            AtomicInteger count = new AtomicInteger();
+
+            executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE
+                    , POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS
+                    , new LinkedBlockingQueue<>()
+                    , runnable -> new Thread(runnable, "RapidX-Batch-" + count.incrementAndGet()));
+
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    private interface Job {
+        void run(Result result);
+    }
+
+    private interface Finisher {
+        void finish(List<Result> results, BatchTask task);
+    }
+
+    /**
+     * Status of a file in batch.
+     */
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        CANCELLED,
+        /**
+         * Consent request is launched. A delete on R and above is done once user accepts it,
+         * other requests only grant access, so call same operation again after user accepts it.
+         */
+        CONSENT_REQUIRED
+    }
+
+    /**
+     * Result of a file in batch.
+     */
+    public static final class Result {
+
+        public final String path;
+        public String output;
+        public Status status = Status.FAILED;
+        public String message;
+
+        private boolean started;
+
+        Result(String path) {
+            this.path = path;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "path='" + path + '\'' +
+                    ", output='" + output + '\'' +
+                    ", status=" + status +
+                    ", message='" + message + '\'' +
+                    '}';
+        }
+    }
+
+    /**
+     * Handle of a running batch.
+     */
+    public static final class BatchTask {
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        BatchTask() {
+        }
+
+        /**
+         * Skip files which are not started yet, results of them are {@link Status#CANCELLED}.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true once {@link BatchCallback#onComplete(List)} is called.
+         */
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    /**
+     * {@link FileBatch} listener interface.
+     */
+    public interface BatchCallback {
+
+        /**
+         * Called at most once per 100 milliseconds and once all files are done.
+         *
+         * @param done  - number of files done.
+         * @param total - number of files in batch.
+         */
+        void onProgress(int done, int total);
+
+        /**
+         * @param results - result of each file in given order.
+         */
+        void onComplete(List<Result> results);
+    }
+}
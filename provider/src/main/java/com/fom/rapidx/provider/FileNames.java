@@ -0,0 +1,195 @@
+package com.fom.rapidx.provider;
+
+import android.webkit.MimeTypeMap;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * 18th Oct 2026.
+ * Name, extension and mime type of a path, parsed from string only.
+ * <p>
+ * Nothing here touches file system. Positions are found by a single backward scan
+ * and mime types of common extensions are looked up in a precomputed table
+ * by comparing characters in place, so no substring is created for a lookup.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+final class FileNames {
+
+    private static final String[] MIME_TYPES = {
+            //images
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "bmp", "image/bmp",
+            "heic", "image/heic",
+            "heif", "image/heif",
+            "avif", "image/avif",
+            "svg", "image/svg+xml",
+            "ico", "image/x-icon",
+            "tif", "image/tiff",
+            "tiff", "image/tiff",
+            "dng", "image/x-adobe-dng",
+            "cr2", "image/x-canon-cr2",
+            "nef", "image/x-nikon-nef",
+            "arw", "image/x-sony-arw",
+            //videos
+            "mp4", "video/mp4",
+            "m4v", "video/x-m4v",
+            "3gp", "video/3gpp",
+            "3gpp", "video/3gpp",
+            "3g2", "video/3gpp2",
+            "mkv", "video/x-matroska",
+            "webm", "video/webm",
+            "avi", "video/avi",
+            "mov", "video/quicktime",
+            "wmv", "video/x-ms-wmv",
+            "flv", "video/x-flv",
+            "ts", "video/mp2ts",
+            "mpg", "video/mpeg",
+            "mpeg", "video/mpeg",
+            //audios
+            "mp3", "audio/mpeg",
+            "m4a", "audio/mp4",
+            "aac", "audio/aac",
+            "wav", "audio/x-wav",
+            "ogg", "audio/ogg",
+            "oga", "audio/ogg",
+            "opus", "audio/ogg",
+            "flac", "audio/flac",
+            "amr", "audio/amr",
+            "awb", "audio/amr-wb",
+            "mid", "audio/midi",
+            "midi", "audio/midi",
+            "wma", "audio/x-ms-wma",
+            "mka", "audio/x-matroska",
+            //documents
+            "pdf", "application/pdf",
+            "txt", "text/plain",
+            "csv", "text/comma-separated-values",
+            "htm", "text/html",
+            "html", "text/html",
+            "xml", "text/xml",
+            "json", "application/json",
+            "rtf", "application/rtf",
+            "doc", "application/msword",
+            "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "xls", "application/vnd.ms-excel",
+            "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "ppt", "application/vnd.ms-powerpoint",
+            "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "odt", "application/vnd.oasis.opendocument.text",
+            "ods", "application/vnd.oasis.opendocument.spreadsheet",
+            "epub", "application/epub+zip",
+            //archives and packages
+            "zip", "application/zip",
+            "rar", "application/rar",
+            "7z", "application/x-7z-compressed",
+            "gz", "application/gzip",
+            "tar", "application/x-tar",
+            "apk", "application/vnd.android.package-archive",
+    };
+
+    private static final int TABLE_SIZE = 256; //power of two, more than twice number of extensions
+    private static final String[] keys = new String[TABLE_SIZE];
+    private static final String[] values = new String[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < MIME_TYPES.length; i += 2) {
+            String key = MIME_TYPES[i];
+            int slot = hash(key, 0, key.length()) & (TABLE_SIZE - 1);
+            while (keys[slot] != null) slot = (slot + 1) & (TABLE_SIZE - 1);
+            keys[slot] = key;
+            values[slot] = MIME_TYPES[i + 1];
+        }
+    }
+
+    private FileNames() {
+    }
+
+    /**
+     * @return index where name starts, after last separator.
+     */
+    static int nameStart(String path) {
+        return path.lastIndexOf(File.separatorChar) + 1;
+    }
+
+    /**
+     * @return index of dot of extension, -1 if name has no extension.
+     * A dot which starts name, like '.nomedia', is not an extension.
+     */
+    static int extensionDot(String path) {
+
+        for (int i = path.length() - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+            if (c == File.separatorChar) return -1;
+            if (c == '.') return i > 0 && path.charAt(i - 1) != File.separatorChar ? i : -1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return name of path, path itself if it has no separator.
+     */
+    static String name(String path) {
+        int start = nameStart(path);
+        return start == 0 ? path : path.substring(start);
+    }
+
+    /**
+     * @return name of path without extension.
+     */
+    static String nameWithoutExtension(String path) {
+        int start = nameStart(path);
+        int dot = extensionDot(path);
+        int end = dot == -1 ? path.length() : dot;
+        return start == 0 && end == path.length() ? path : path.substring(start, end);
+    }
+
+    /**
+     * @return extension with dot, like '.mp4', empty if name has no extension.
+     */
+    static String extension(String path) {
+        int dot = extensionDot(path);
+        return dot == -1 ? "" : path.substring(dot);
+    }
+
+    /**
+     * @return mime type of extension of path, null if extension is missing or unknown.
+     * Extensions not in table are looked up in {@link MimeTypeMap}.
+     */
+    static String mimeType(String path) {
+
+        int dot = extensionDot(path);
+
+        if (dot == -1 || dot == path.length() - 1) return null;
+
+        int from = dot + 1;
+        int length = path.length() - from;
+        int slot = hash(path, from, path.length()) & (TABLE_SIZE - 1);
+
+        for (String key = keys[slot]; key != null; key = keys[slot = (slot + 1) & (TABLE_SIZE - 1)]) {
+            if (key.length() == length && path.regionMatches(true, from, key, 0, length)) return values[slot];
+        }
+
+        return MimeTypeMap.getSingleton().getMimeTypeFromExtension(path.substring(from).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return case insensitive hash of characters in range.
+     */
+    private static int hash(String text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            hash = 31 * hash + c;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
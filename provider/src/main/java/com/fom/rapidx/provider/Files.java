@@ -12,8 +12,10 @@ import android.content.IntentSender;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.MediaStore;
-import android.webkit.MimeTypeMap;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.IntentSenderRequest;
@@ -26,10 +28,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 18th Sept 2022.
@@ -52,6 +65,14 @@ public class Files {
      */
     public static class Editor {
 
+        private static final int POOL_SIZE = 2;
+        private static final int POOL_KEEP_ALIVE_SECONDS = 30;
+        private static final long PROGRESS_INTERVAL_MILLIS = 100;
+
+        private static ThreadPoolExecutor executor;
+
+        private Executor callbackExecutor;
+
         /**
          * {@link Editor} listener interface.
          */
@@ -61,6 +82,37 @@ public class Files {
             void onError(String message);
         }
 
+        /**
+         * {@link Editor} listener interface of asynchronous copy.
+         */
+        public interface CopyCallback extends EditorCallback {
+
+            /**
+             * Called at most once per 100 milliseconds while copying.
+             *
+             * @param done           - bytes copied.
+             * @param total          - bytes to copy.
+             * @param bytesPerSecond - average speed so far.
+             * @param etaMillis      - estimated remaining time.
+             */
+            void onProgress(long done, long total, long bytesPerSecond, long etaMillis);
+
+            /**
+             * Called instead of {@link #onComplete(String)} if copy is cancelled,
+             * partially copied file is already deleted.
+             */
+            default void onCancelled() {
+            }
+        }
+
+        /**
+         * Set executor to call {@link CopyCallback} on, main thread by default.
+         */
+        public Editor callbackOn(Executor executor) {
+            this.callbackExecutor = executor;
+            return this;
+        }
+
         /**
          * File copy.
          * Copy file object to anywhere in external storage.
@@ -97,6 +149,180 @@ public class Files {
             }
         }
 
+        /**
+         * {@link FileBatch} class constructor.
+         * Copy, move, rename or delete many files at once.
+         */
+        public FileBatch batch(Context context) {
+            return new FileBatch(context);
+        }
+
+        /**
+         * Asynchronous file copy, see {@link #copy(Context, File, String, EditorCallback)}.
+         * <p>
+         * File is copied on a bounded background executor and progress is reported while copying.
+         *
+         * @param input - A file to copy.
+         * @param dest  - A destination path where you want to copy.
+         * @return task to cancel copy.
+         */
+        public CopyTask copyAsync(Context context, File input, String dest, CopyCallback callback) {
+
+            CopyTask task = new CopyTask();
+            Executor callbacks = callbackExecutor != null
+                    ? callbackExecutor
+                    : new Handler(Looper.getMainLooper())::post;
+
+            executor().execute(() -> {
+
+                Utils utils = new Utils();
+                String finalPath = null;
+                boolean success = false;
+
+                //a task cancelled while queued creates no output
+                if (!task.isCancelled()) {
+
+                    finalPath = utils.getUniqueFileName(dest.isEmpty() ? input.getPath() : dest);
+                    File output = new File(finalPath);
+                    Progress progress = new Progress(input.length(), task, callback, callbacks);
+                    boolean opened = false;
+
+                    try (FileInputStream in = new FileInputStream(input)) {
+
+                        if (!task.isCancelled()) {
+                            opened = true;
+                            try (FileOutputStream out = new FileOutputStream(output)) {
+                                success = Utils.transfer(in, out, progress) == in.getChannel().size()
+                                        && !task.isCancelled();
+                            }
+                        }
+
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+
+                    if (success) {
+                        utils.addToMediaStore(context, output);
+                    } else if (opened) {
+                        //noinspection ResultOfMethodCallIgnored
+                        output.delete(); //partial or cancelled output
+                    }
+                }
+
+                String path = finalPath;
+                boolean copied = success;
+
+                callbacks.execute(() -> {
+                    task.done = true;
+                    if (callback == null) return;
+                    if (task.isCancelled()) callback.onCancelled();
+                    else if (copied) callback.onComplete(path);
+                    else callback.onError("Failed to copy"
+                                + ", Input file is valid?"
+                                + ", Destination is valid?");
+                });
+            });
+
+            return task;
+        }
+
+        /**
+         * Asynchronous file duplicate in same directory, see {@link #copyAsync(Context, File, String, CopyCallback)}.
+         *
+         * @return task to cancel duplicate.
+         */
+        public CopyTask duplicateAsync(Context context, File file, CopyCallback callback) {
+            return copyAsync(context, file, "", callback);
+        }
+
+        /**
+         * @return executor of asynchronous copies, bounded so large copies don't compete for disk.
+         */
+        private static synchronized ExecutorService executor() {
+
+            if (executor == null) {
+
+                AtomicInteger count = new AtomicInteger();
+
+                executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE
+                        , POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS
+                        , new LinkedBlockingQueue<>()
+                        , runnable -> new Thread(runnable, "RapidX-IO-" + count.incrementAndGet()));
+
+                executor.allowCoreThreadTimeOut(true);
+            }
+
+            return executor;
+        }
+
+        /**
+         * Handle of an asynchronous copy.
+         */
+        public static final class CopyTask {
+
+            private volatile boolean cancelled;
+            private volatile boolean done;
+
+            CopyTask() {
+            }
+
+            /**
+             * Stop copying, partially copied file is deleted and a copy not started yet creates no file.
+             */
+            public void cancel() {
+                cancelled = true;
+            }
+
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            /**
+             * @return true once callback of copy is called.
+             */
+            public boolean isDone() {
+                return done;
+            }
+        }
+
+        /**
+         * Throttled progress of a copy, stops transfer once task is cancelled.
+         */
+        private static final class Progress implements Utils.TransferListener {
+
+            private final long total;
+            private final CopyTask task;
+            private final CopyCallback callback;
+            private final Executor callbacks;
+            private final long start = SystemClock.elapsedRealtime();
+            private long last;
+
+            Progress(long total, CopyTask task, CopyCallback callback, Executor callbacks) {
+                this.total = total;
+                this.task = task;
+                this.callback = callback;
+                this.callbacks = callbacks;
+            }
+
+            @Override
+            public boolean onTransferred(long done) {
+
+                if (task.isCancelled()) return false;
+
+                long now = SystemClock.elapsedRealtime();
+
+                if (callback != null && (now - last >= PROGRESS_INTERVAL_MILLIS || done == total)) {
+                    last = now;
+                    long elapsed = Math.max(1, now - start);
+                    long speed = done * 1000 / elapsed;
+                    long eta = speed == 0 ? -1 : (total - done) * 1000 / speed;
+                    callbacks.execute(() -> callback.onProgress(done, total, speed, eta));
+                }
+
+                return true;
+            }
+        }
+
         /**
          * Delete file.
          * <p>
@@ -113,6 +339,8 @@ public class Files {
             boolean success = new File(path).delete();
 
             if (success) {
+                UriCache.getInstance().invalidate(path);
+                NameAllocator.invalidate(path);
                 return Activity.RESULT_OK;
             }
 
@@ -128,6 +356,8 @@ public class Files {
             try {
                 //delete object using resolver
                 int result = contentResolver.delete(delete, null, null);
+                UriCache.getInstance().invalidate(path);
+                NameAllocator.invalidate(path);
                 return result == 1
                         ? Activity.RESULT_OK
                         : Activity.RESULT_CANCELED;
@@ -200,11 +430,12 @@ public class Files {
 
                 if (input.renameTo(output)) { //if rename success
 
-                    //delete old file from media store
-                    utils.removeFromMediaStore(context, input);
-
-                    //add new renamed file to media store
-                    utils.addToMediaStore(context, output);
+                    //replace old file with new renamed file in media store
+                    MediaRegistrar registrar = MediaRegistrar.getInstance(context);
+                    UriCache.getInstance().invalidate(input.getPath());
+                    NameAllocator.invalidate(input.getPath());
+                    registrar.unregister(input.getAbsolutePath());
+                    registrar.register(output.getAbsolutePath());
 
                     if (callback != null) callback.onComplete(finalPath); //complete callback
 
@@ -227,6 +458,9 @@ public class Files {
      */
     public static class Utils {
 
+        private static final int BUFFER_SIZE = 256 * 1024;
+        private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+
         /**
          * Share the desired files using application of choice by user
          *
@@ -322,61 +556,24 @@ public class Files {
 
         /**
          * Get unique name of file if original name already exist in directory.
+         * <p>
+         * Directory is listed once and cached, see {@link NameAllocator}. Safe to call from multiple threads,
+         * name is only taken once its file exists, so create it atomically if callers run concurrently.
          */
         public String getUniqueFileName(String filepath) {
-
-            File file = new File(filepath);
-
-            if (!file.exists())
-                return filepath;
-
-            String extension = getFileExtension(filepath);
-
-            File parentFile = file.getParentFile();
-            if (parentFile != null) {
-                File[] listFiles = parentFile.listFiles();
-
-                if (listFiles != null) {
-                    int append = checkRepeat(filepath, Arrays.asList(listFiles), extension);
-                    filepath = filepath.replace(extension, "(" + append + ")" + extension);
-                }
-            }
-
-            return filepath;
-        }
-
-        /**
-         * Checks if the new file already exists.
-         *
-         * @param finalOutputFile Path of file to check
-         * @param files           List.
-         * @return Number to be added finally in the name to avoid overwrite
-         */
-        int checkRepeat(String finalOutputFile, final List<File> files, String extension) {
-            boolean flag = true;
-            int append = 0;
-            while (flag) {
-                append++;
-                String name = finalOutputFile.replace(extension, "(" + append + ")" + extension);
-                flag = files.contains(new File(name));
-            }
-            return append;
+            return NameAllocator.allocate(filepath);
         }
 
         /**
-         * Extracts file name from the path
+         * Extracts file name from the path, without checking file exists.
          *
          * @param path - file path
          * @return - extracted filename
          */
         public String getFileName(String path) {
-            if (path == null)
-                return null;
+            if (path == null) return null;
 
-            File file = new File(path);
-            return file.exists()
-                    ? file.getName()
-                    : null;
+            return FileNames.name(path);
         }
 
         /**
@@ -388,47 +585,31 @@ public class Files {
         public String getFileNameWithoutExt(String path) {
             if (path == null) return null;
 
-            String filename = getFileName(path);
-            int index = filename.lastIndexOf(".");
-            return index == -1
-                    ? path
-                    : index < filename.length()
-                    ? filename.substring(0, index)
-                    : null;
+            return FileNames.nameWithoutExtension(path);
         }
 
         /**
          * Extracts extension from the path
          *
          * @param path - file path.
-         * @return - extension of file.
+         * @return - extension of file with dot, like '.mp4', empty if file has no extension.
          */
         public String getFileExtension(String path) {
             if (path == null) return null;
 
-            int index = path.lastIndexOf(".");
-            return index == -1
-                    ? path
-                    : index < path.length()
-                    ? path.substring(index)
-                    : null;
+            return FileNames.extension(path);
         }
 
         /**
-         * Extracts extension from the path
+         * Mime type from extension of the path, see {@link FileNames#mimeType(String)}.
          *
          * @param path - file path.
-         * @return - extension of file.
+         * @return - mime type of file, null if extension is missing or unknown.
          */
         public String getFileMimeType(String path) {
             if (path == null) return null;
 
-            String extension = getFileExtension(path);
-
-            if (extension != null) {
-                return MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.replace(".", ""));
-            }
-            return null;
+            return FileNames.mimeType(path);
         }
 
         /**
@@ -477,33 +658,12 @@ public class Files {
 
         /**
          * Store file object into android media store.
+         * Files are scanned in batches by {@link MediaRegistrar}.
          *
          * @param file - to be add.
          */
-        private void addToMediaStore(Context context, File file) {
-            Intent intent = new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE);
-            intent.setData(Uri.fromFile(file));
-            context.sendBroadcast(intent);
-        }
-
-        /**
-         * Remove file object from android media store.
-         *
-         * @param file - to be delete.
-         */
-        private int removeFromMediaStore(Context context, File file) {
-
-            //check each media store and delete file from valid media store
-            // if i = 1 means file is deleted, if 0 check next media store.
-            int i = deleteFromVideoMediaStore(context, file); //delete file from video media store
-            if (i == 0)
-                i = deleteFromAudioMediaStore(context, file); //delete file from audio media store
-            if (i == 0)
-                i = deleteFromImagesMediaStore(context, file); //delete file from images media store
-            if (i == 0)
-                i = deleteFromFileMediaStore(context, file); //delete file from files media store
-
-            return i;
+        MediaRegistrar.Completion<Map<String, Uri>> addToMediaStore(Context context, File file) {
+            return MediaRegistrar.getInstance(context).register(file.getAbsolutePath());
         }
 
         /**
@@ -555,9 +715,33 @@ public class Files {
         }
 
         /**
-         * @return file path from media uri.
+         * @return pairs of path and media uri cached by {@link #getPathFromUri(Context, Uri)}
+         * and {@link #getUriFromPath(Context, String)}, with hit and miss counters.
+         */
+        public UriCache getUriCache() {
+            return UriCache.getInstance();
+        }
+
+        /**
+         * @return file path from media uri, cached by {@link UriCache}.
          */
         public String getPathFromUri(Context context, Uri uri) {
+
+            UriCache cache = UriCache.getInstance();
+            String path = cache.getPath(uri);
+
+            if (path == null) {
+                path = queryPathFromUri(context, uri);
+                cache.put(context, path, uri);
+            }
+
+            return path;
+        }
+
+        /**
+         * @return file path from media uri, read from media store.
+         */
+        private String queryPathFromUri(Context context, Uri uri) {
             Cursor cursor = context.getContentResolver().query(uri
                     , new String[]{MediaStore.MediaColumns.DATA}
                     , null
@@ -581,14 +765,32 @@ public class Files {
         }
 
         /**
-         * @return media uri from file path.
+         * @return media uri from file path, cached by {@link UriCache}.
          */
         public Uri getUriFromPath(Context context, String path) {
 
+            UriCache cache = UriCache.getInstance();
+            Uri uri = cache.getUri(path);
+
+            if (uri == null) {
+                uri = queryUriFromPath(context, path);
+                cache.put(context, path, uri);
+            }
+
+            return uri;
+        }
+
+        /**
+         * @return media uri from file path, read from media store or inserted if file has no entry.
+         */
+        private Uri queryUriFromPath(Context context, String path) {
+
             File file = new File(path);
             String mime = getFileMimeType(path);
 
-            Uri mediaUri = mime.startsWith("image")
+            Uri mediaUri = mime == null
+                    ? MediaStore.Files.getContentUri("external")
+                    : mime.startsWith("image")
                     ? MediaStore.Images.Media.EXTERNAL_CONTENT_URI
                     : mime.startsWith("video")
                     ? MediaStore.Video.Media.EXTERNAL_CONTENT_URI
@@ -652,27 +854,164 @@ public class Files {
 
         /**
          * Write input file data into output file.
+         * <p>
+         * Data is moved by {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+         * so kernel copies it without passing it through java buffers.
+         * A partially written output is deleted.
          *
          * @param input  - source file.
          * @param output - where data will written.
+         * @return true if all bytes of input are written.
          */
         public boolean writeFile(File input, File output) {
 
-            try (InputStream in = new FileInputStream(input)) {  //input stream
+            boolean opened = false;
+            boolean success;
 
-                OutputStream out = new FileOutputStream(output); //output stream
+            try (FileInputStream in = new FileInputStream(input);
+                 FileOutputStream out = new FileOutputStream(output)) {
 
-                byte[] buf = new byte[1024];
-                int len;
-                while ((len = in.read(buf)) > 0) {
-                    out.write(buf, 0, len); //write input file data to output file
-                }
+                opened = true;
+                long expected = in.getChannel().size();
+                success = transfer(in, out) == expected;
 
             } catch (IOException e) {
                 e.printStackTrace();
-                return false;
+                success = false;
+            }
+
+            if (opened && !success) {
+                //noinspection ResultOfMethodCallIgnored
+                output.delete();
+            }
+
+            return success;
+        }
+
+        /**
+         * Write input uri data into output uri, like content uris of media store.
+         * <p>
+         * Uris backed by seekable files are copied like {@link #writeFile(File, File)},
+         * others like pipes through a direct buffer. Output is truncated first,
+         * and again if copy fails, so it never keeps stale or partial data.
+         *
+         * @return true if input is copied up to its end.
+         */
+        public boolean writeFile(Context context, Uri input, Uri output) {
+
+            ContentResolver resolver = context.getContentResolver();
+            boolean opened = false;
+            boolean success;
+
+            try (InputStream in = resolver.openInputStream(input);
+                 OutputStream out = resolver.openOutputStream(output, "wt")) {
+
+                if (in == null || out == null) return false;
+
+                opened = true;
+                long expected = remaining(in);
+                long written = transfer(in, out);
+
+                //buffered copy only returns at end of input, a file copy may end early if file shrinks
+                success = expected == -1 || written == expected;
+
+            } catch (IOException | SecurityException e) {
+                e.printStackTrace();
+                success = false;
+            }
+
+            if (opened && !success) {
+                try (OutputStream ignored = resolver.openOutputStream(output, "wt")) {
+                    //partial output is truncated
+                } catch (IOException | SecurityException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            return success;
+        }
+
+        /**
+         * @return bytes left in input if it is a seekable file, -1 if unknown like for a pipe.
+         */
+        static long remaining(InputStream in) {
+
+            if (!(in instanceof FileInputStream)) return -1;
+
+            try {
+                FileChannel channel = ((FileInputStream) in).getChannel();
+                return channel.size() - channel.position(); //position fails on a pipe
+            } catch (IOException e) {
+                return -1;
             }
-            return true;
+        }
+
+        /**
+         * Copy all remaining bytes of input into output, streams are not closed.
+         *
+         * @return number of bytes written.
+         */
+        static long transfer(InputStream in, OutputStream out) throws IOException {
+            return transfer(in, out, null);
+        }
+
+        /**
+         * Copy all remaining bytes of input into output, streams are not closed.
+         * <p>
+         * Channel transfer is used only if input is a seekable file, a file stream of a pipe
+         * has no size and is copied through buffer instead.
+         *
+         * @param listener - notified after each chunk, stops transfer by returning false.
+         * @return number of bytes written.
+         */
+        static long transfer(InputStream in, OutputStream out, TransferListener listener) throws IOException {
+
+            if (out instanceof FileOutputStream && remaining(in) != -1) {
+
+                FileChannel source = ((FileInputStream) in).getChannel();
+                FileChannel target = ((FileOutputStream) out).getChannel();
+                long position = source.position();
+                long size = source.size();
+                long written = 0;
+
+                //transferTo may move less than asked, so loop until source end
+                while (position + written < size) {
+                    long count = source.transferTo(position + written, Math.min(TRANSFER_CHUNK, size - position - written), target);
+                    if (count <= 0) break;
+                    written += count;
+                    if (listener != null && !listener.onTransferred(written)) break;
+                }
+
+                source.position(position + written);
+                return written;
+            }
+
+            ReadableByteChannel source = Channels.newChannel(in);
+            WritableByteChannel target = Channels.newChannel(out);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long written = 0;
+
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) written += target.write(buffer);
+                buffer.clear();
+                if (listener != null && !listener.onTransferred(written)) break;
+            }
+
+            out.flush();
+            return written;
+        }
+
+        /**
+         * Listener of {@link #transfer(InputStream, OutputStream, TransferListener)}.
+         */
+        interface TransferListener {
+
+            /**
+             * @param written - bytes written so far.
+             * @return false to stop transfer.
+             */
+            boolean onTransferred(long written);
         }
     }
 }
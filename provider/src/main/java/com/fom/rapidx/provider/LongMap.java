@@ -0,0 +1,180 @@
+package com.fom.rapidx.provider;
+
+import java.util.Arrays;
+
+/**
+ * 18th Oct 2026.
+ * A hash map with primitive long keys, so media ids are never boxed.
+ * <p>
+ * Open addressing with linear probing, null values are not allowed.
+ * Not thread safe.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+final class LongMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    LongMap() {
+        this(16);
+    }
+
+    /**
+     * @param expected - expected number of entries.
+     */
+    LongMap(int expected) {
+        int capacity = 4;
+        while (capacity < expected * 2) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return value of key or null if key is not available.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int i = index(key);
+        while (values[i] != null) {
+            if (keys[i] == key) return (V) values[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return previous value of key or null.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+
+        if (value == null) {
+            throw new NullPointerException("Value should not be null.");
+        }
+
+        int i = index(key);
+
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+
+        if (++size * 2 > values.length) {
+            resize(values.length << 1);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return removed value of key or null.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+
+        int i = index(key);
+
+        while (values[i] != null) {
+
+            if (keys[i] == key) {
+
+                V old = (V) values[i];
+                values[i] = null;
+                size--;
+
+                //shift following entries back so probing never stops at the removed slot
+                int j = i;
+                while (true) {
+                    j = (j + 1) & mask;
+                    if (values[j] == null) break;
+                    int k = index(keys[j]);
+                    if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+                        keys[i] = keys[j];
+                        values[i] = values[j];
+                        values[j] = null;
+                        i = j;
+                    }
+                }
+
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return copy of all keys.
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) result[n++] = keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return shallow copy of this map.
+     */
+    LongMap<V> copy() {
+        LongMap<V> copy = new LongMap<>(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int index(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) continue;
+            int j = index(oldKeys[i]);
+            while (values[j] != null) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
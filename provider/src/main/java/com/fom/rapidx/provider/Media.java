@@ -1,21 +1,47 @@
 package com.fom.rapidx.provider;
 
+import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
 import android.provider.MediaStore;
+import android.text.TextUtils;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 18th Sept 2022.
@@ -29,9 +55,24 @@ public class Media {
 
     private Context context;
     private MediaAction action;
-    private MediaObserver observer;
     private boolean withAlbumArt;
-    private boolean isTerminate;
+    private boolean columnar;
+    private boolean validate;
+    private boolean withIndex;
+    private MediaTable table;
+    private Query filter;
+    private volatile MediaTask task; //last started task
+    private volatile MediaTask running; //task currently reading
+    private final HashSet<String> dirtyBuckets = new HashSet<>();
+    private final LongMap<ArrayList<MediaObject>> pendingArts = new LongMap<>();
+
+    private static final int MAX_QUERY_ARGS = 500;
+    private static final long PROGRESS_INTERVAL_MILLIS = 100;
+    private static final long INDEX_DELAY_MILLIS = 5000;
+    private static final LongMap<String> albumArts = new LongMap<>(); //album id, thumbnail
+    private static final int POOL_SIZE = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors()));
+    private static final long POOL_KEEP_ALIVE_SECONDS = 30;
+    private static ThreadPoolExecutor executor;
 
     public static final HashMap<String, ArrayList<MediaObject>> audioMap = new HashMap<>();
     public static final HashMap<String, ArrayList<MediaObject>> videoMap = new HashMap<>();
@@ -67,253 +108,2535 @@ public class Media {
         return this;
     }
 
+    /**
+     * Set {@link Query} to filter and sort media by media store itself,
+     * so only matching rows are read.
+     */
+    public Media query(Query query) {
+        this.filter = query;
+        return this;
+    }
+
+    /**
+     * Set true to leave out media whose file no longer exists but is still in media store.
+     * <p>
+     * Files are checked after reading by listing each folder once, see {@link DirectoryCache}.
+     * Ignored in {@link #columnar(boolean)} mode and by {@link Pager}.
+     */
+    public Media validate(boolean validate) {
+        this.validate = validate;
+        return this;
+    }
+
+    /**
+     * Set true to store scan result column wise in {@link MediaSnapshot#getTable()}
+     * instead of one {@link MediaObject} per media, which keeps large libraries compact.
+     * <p>
+     * List and map of {@link MediaAction} stay empty and {@link #sync(MediaObserver)} reads
+     * whole collection in this mode.
+     */
+    public Media columnar(boolean columnar) {
+        this.columnar = columnar;
+        return this;
+    }
+
+    /**
+     * Set true to keep last scan result in an index file in app cache.
+     * <p>
+     * First {@link #sync(MediaObserver)} after process start then publishes cached result at once
+     * through {@link MediaObserver#onRestored(MediaSnapshot)} and only reads changes in background.
+     * Ignored in {@link #columnar(boolean)} mode and with {@link #query(Query)}.
+     */
+    public Media withIndex(boolean withIndex) {
+        this.withIndex = withIndex;
+        return this;
+    }
+
     /**
      * Terminate currently active executor task.
      * <p>
-     * {@link MediaObserver#onComplete()} will called after termination.
+     * {@link MediaObserver#onCancelled()} will called after termination instead of
+     * {@link MediaObserver#onComplete()}, see {@link MediaTask#cancel()}.
      */
     public void terminate() {
-        this.isTerminate = true;
+        MediaTask last = task;
+        MediaTask current = running;
+        if (last != null) last.cancel();
+        if (current != null) current.cancel();
     }
 
     /**
      * Observe retrieving process.
+     *
+     * @return task to cancel retrieving or bind it to a lifecycle.
      */
-    public void observe(MediaObserver observer) {
+    public MediaTask observe(MediaObserver observer) {
 
         preconditions();
 
-        this.observer = observer;
+        return execute(observer, () -> {
+            clear();
+            if (columnar) {
+                retrieveTable(observer);
+            } else {
+                retrieve(observer, null);
+                removeMissing();
+            }
+        }, false);
+    }
 
-        ExecutorService executorService = Executors.newFixedThreadPool(1);
-        Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * Observe retrieving process of multiple actions at once.
+     * <p>
+     * Each action is read concurrently on shared media executor,
+     * {@link CombinedObserver#onComplete()} is called once after all actions are completed.
+     *
+     * @param actions - actions to read, all actions if empty.
+     * @return task to cancel all actions or bind them to a lifecycle.
+     */
+    public MediaTask observe(CombinedObserver observer, MediaAction... actions) {
 
-        executorService.execute(() -> {
+        preconditions();
 
-            clear();
-            retrieve();
+        MediaAction[] targets = actions.length == 0 ? MediaAction.values() : actions;
+        int[] remaining = {targets.length};
+        MediaTask parent = new MediaTask();
 
-            handler.post(() -> {
-                if (observer != null) {
-                    observer.onComplete();
+        this.task = parent;
+
+        for (MediaAction target : targets) {
+
+            Media child = new Media()
+                    .with(context)
+                    .action(target)
+                    .withAlbumArt(withAlbumArt)
+                    .columnar(columnar)
+                    .withIndex(withIndex)
+                    .query(filter)
+                    .validate(validate);
+
+            parent.children.add(child.observe(new MediaObserver() {
+                @Override
+                public void onObserving(int position) {
                 }
-            });
-        });
+
+                @Override
+                public void onProgress(int position, int progress) {
+                    if (observer != null) observer.onProgress(target, position, progress);
+                }
+
+                @Override
+                public void onComplete() {
+                    if (observer != null) observer.onComplete(target);
+                    onDone();
+                }
+
+                @Override
+                public void onCancelled() {
+                    onDone();
+                }
+
+                private void onDone() {
+
+                    if (--remaining[0] > 0) return;
+
+                    parent.finish();
+
+                    if (observer == null) return;
+
+                    if (parent.isCancelled()) observer.onCancelled();
+                    else observer.onComplete();
+                }
+            }));
+        }
+
+        return parent;
     }
 
     /**
-     * Check pre-conditions before start.
+     * Observe incremental retrieving process.
+     * <p>
+     * First call reads whole collection like {@link #observe(MediaObserver)}, later calls only read
+     * objects inserted or modified since previous scan and remove deleted objects from
+     * {@link MediaAction#getSnapshot()}. Read objects are placed where a full scan would place them,
+     * newest first unless {@link Query} sorts them.
+     * <p>
+     * SDK version is >= 30(R)? changes are found using media store generation,
+     * else using last 'date_modified' and '_id'.
+     * <p>
+     * With {@link #withIndex(boolean)}, a first call restores previous result from index file instead
+     * of reading whole collection, a missing or corrupted index falls back to full scan.
+     *
+     * @return task to cancel retrieving or bind it to a lifecycle.
      */
-    void preconditions() {
-        if (context == null) {
-            throw new NullPointerException("Context should not be null. to fix add 'with()' method.");
+    public MediaTask sync(MediaObserver observer) {
+
+        preconditions();
+
+        return execute(observer, () -> synchronize(observer), true);
+    }
+
+    /**
+     * Watch {@link MediaAction#getUri()} for changes and apply them to sync state as they happen.
+     * <p>
+     * Change notifications are collected until none arrives for given debounce time and then applied
+     * at once. Only notified rows are read again if media store tells their uris, else changes are
+     * read like {@link #sync(MediaObserver)}. Call {@link Watcher#stop()} to stop watching.
+     *
+     * @param debounceMillis - quiet time before collected changes are applied.
+     * @return watcher, which is already watching.
+     */
+    public Watcher watch(long debounceMillis, WatchObserver observer) {
+
+        preconditions();
+
+        if (columnar) {
+            throw new IllegalStateException("Watch is not supported in columnar mode.");
+        }
+
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce time should not be negative.");
         }
+
+        Watcher watcher = new Watcher(debounceMillis, observer);
+        watcher.start();
+        return watcher;
     }
 
     /**
-     * Start retrieving media object using {@link android.content.ContentResolver}.
+     * Bring sync state up to date, see {@link #sync(MediaObserver)}.
+     *
+     * @param observer - observer of reading progress or null.
      */
-    private void retrieve() {
+    private void synchronize(MediaObserver observer) {
 
-        Cursor cursor = context.getContentResolver().query(action.getUri()
-                , null
-                , null
-                , null
-                , null);
+        SyncState state = action.getSyncState();
+        String query = Query.key(filter);
 
-        if (cursor == null || cursor.getCount() == 0) return;
+        if (state.isScanned() && !TextUtils.equals(state.query, query)) {
+            state.clear(); //changes of another query can not be applied
+        }
+
+        state.query = query;
 
-        cursor.moveToFirst();
+        if (columnar) {
+            clear();
+            retrieveTable(observer);
+        } else if (state.isScanned() || restore(state, observer)) {
+            retrieveChanges(state, observer);
+            removeDeleted(state);
+            removeMissing();
+        } else {
+            clear();
+            retrieve(observer, null);
+            removeMissing();
+        }
+    }
 
-        do {
+    /**
+     * Run task on background thread, publish its result as new {@link MediaSnapshot}
+     * and notify {@link MediaObserver#onComplete(MediaSnapshot)} on main thread.
+     * <p>
+     * Tasks of same action are queued and run one by one as they share sync state of action,
+     * see {@link SerialExecutor}.
+     * A cancelled task publishes nothing and notifies {@link MediaObserver#onCancelled()} instead.
+     *
+     * @param observer      - observer of this task only, or null.
+     * @param keepSelection - false to clear {@link MediaAction#getSelectedList()}.
+     */
+    private MediaTask execute(MediaObserver observer, Runnable runnable, boolean keepSelection) {
 
-            if (isTerminate) break;
+        MediaTask task = new MediaTask();
+        Handler handler = new Handler(Looper.getMainLooper());
 
-            if (observer != null) {
-                observer.onObserving(cursor.getPosition());
-            }
+        this.task = task;
 
-            MediaObject object = new MediaObject();
-            setCursorCommonObject(cursor, object);
+        action.getQueue().execute(() -> {
 
-            if (action == MediaAction.Audio || action == MediaAction.Video) {
-                setCursorObject(cursor, object);
-            }
+            MediaSnapshot snapshot = null;
 
-            if (action == MediaAction.Audio && withAlbumArt) {
-                object.art = getAlbumArt(cursor);
+            synchronized (action.getSyncState()) {
+                if (run(task, runnable)) {
+                    snapshot = publish();
+                    saveIndex(snapshot);
+                }
             }
 
-            saveObject(object);
+            MediaSnapshot result = snapshot;
 
-            if (observer != null) {
-                int progress = cursor.getPosition() * 100 / cursor.getCount();
-                observer.onProgress(cursor.getPosition(), progress);
-            }
+            handler.post(() -> {
+
+                task.finish();
 
-        } while (cursor.moveToNext());
+                if (result == null) {
+                    if (observer != null) observer.onCancelled();
+                    return;
+                }
+
+                action.apply(result, keepSelection);
+
+                if (observer != null) {
+                    observer.onComplete(result);
+                }
+            });
+        });
 
-        cursor.close();
+        return task;
     }
 
     /**
-     * Set common cursor data.
+     * Run task as currently reading task, call holding lock of action sync state.
+     * <p>
+     * Sync state is partially updated if task is cancelled while reading,
+     * so next {@link #sync(MediaObserver)} reads whole collection again.
+     *
+     * @return false if task is cancelled.
      */
-    private void setCursorCommonObject(Cursor cursor, MediaObject object) {
-        object.id = getValidColumnValue_String(cursor, MediaColumns.ID);
-        object.bucketId = getValidColumnValue_String(cursor, MediaColumns.BUCKET_ID);
-        object.bucketName = getValidColumnValue_String(cursor, MediaColumns.BUCKET_DISPLAY_NAME);
-        object.uri = getValidColumnValue_String(cursor, MediaColumns.DATA);
-        object.name = getValidColumnValue_String(cursor, MediaColumns.DISPLAY_NAME);
-        object.mime = getValidColumnValue_String(cursor, MediaColumns.MIME_TYPE);
-        object.size = getValidColumnValue_Long(cursor, MediaColumns.SIZE);
-        object.date = getValidColumnValue_Long(cursor, MediaColumns.DATE_MODIFIED);
+    private boolean run(MediaTask task, Runnable runnable) {
+        return run(task, runnable, true);
+    }
 
-        if (object.bucketName.isEmpty()) {
-            File child = new File(object.uri);
-            File parent = child.exists() ? child.getParentFile() : null;
-            object.bucketName = parent != null && parent.exists() ? parent.getName() : "Unknown";
+    /**
+     * @param modifiesState - true if runnable modifies sync state, a cancelled run then
+     *                      leaves sync state to be scanned again.
+     */
+    private boolean run(MediaTask task, Runnable runnable, boolean modifiesState) {
+
+        if (task.isCancelled()) return false;
+
+        running = task;
+
+        try {
+            runnable.run();
+        } catch (OperationCanceledException e) {
+            //query aborted by cancellation signal
+        } finally {
+            running = null;
+        }
+
+        if (task.isCancelled()) {
+            if (modifiesState) action.getSyncState().scanned = false;
+            return false;
         }
+
+        return true;
     }
 
     /**
-     * Set data using {@link Cursor}.
+     * @return true if currently reading task is cancelled.
      */
-    private void setCursorObject(Cursor cursor, MediaObject object) {
-        object.album = getValidColumnValue_String(cursor, MediaColumns.ALBUM);
-        object.artist = getValidColumnValue_String(cursor, MediaColumns.ARTIST);
-        object.composer = getValidColumnValue_String(cursor, MediaColumns.COMPOSER);
-        object.genre = getValidColumnValue_String(cursor, MediaColumns.GENRE);
-        object.year = getValidColumnValue_String(cursor, MediaColumns.YEAR);
-        object.resolution = getValidColumnValue_String(cursor, MediaColumns.RESOLUTION);
-        object.duration = getValidColumnValue_Long(cursor, MediaColumns.DURATION);
+    private boolean isCancelled() {
+        MediaTask current = running;
+        return current != null && current.isCancelled();
     }
 
     /**
-     * @return valid column {@link String} value.
+     * Build snapshot of sync state and swap it in as current snapshot of action.
      */
-    private String getValidColumnValue_String(Cursor cursor, String column) {
-        int columnIndex = cursor.getColumnIndex(column);
-        if (isColumnIndexValid(cursor, columnIndex)) {
-            return cursor.getString(columnIndex);
-        } else return "";
+    private MediaSnapshot publish() {
+        return publish(null);
     }
 
     /**
-     * @return valid column {@link Long} value.
+     * @param changes - changes from current snapshot if already known, null to compute them.
      */
-    private long getValidColumnValue_Long(Cursor cursor, String column) {
-        return getValidColumnValue_Long(cursor, column, 0);
+    private MediaSnapshot publish(ChangeSet changes) {
+        SyncState state = action.getSyncState();
+        MediaSnapshot snapshot = new MediaSnapshot(action, state.list, state.map, columnar ? table : null
+                , state.stats.build(state.list), action.snapshot.get(), changes);
+        action.snapshot.set(snapshot);
+        state.published(snapshot);
+        return snapshot;
     }
 
     /**
-     * @return valid column {@link Long} value.
+     * Stream retrieving process in batches with backpressure.
+     * <p>
+     * Objects are delivered on main thread in batches of given size and only as many batches as
+     * requested using {@link Subscription#request(long)}. Background reading never waits for requests,
+     * read batches are kept until requested, they only hold objects which are part of
+     * the final snapshot anyway. Album thumbnails of a batch are resolved before it is delivered,
+     * folder sorting at the end of scan only orders folder lists and doesn't change delivered objects.
+     * Progress is delivered at most once per 100 milliseconds.
+     *
+     * @param batchSize - number of media objects per batch.
+     * @return subscription to request batches or cancel streaming, nothing is delivered until first request.
      */
-    private long getValidColumnValue_Long(Cursor cursor, String column, long def) {
-        int columnIndex = cursor.getColumnIndex(column);
-        if (isColumnIndexValid(cursor, columnIndex)) {
-            return cursor.getLong(columnIndex);
-        } else return def;
+    public Subscription stream(int batchSize, StreamObserver observer) {
+
+        preconditions();
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be greater than 0.");
+        }
+
+        StreamTask task = new StreamTask(batchSize, observer);
+
+        //stream observes its own task only, so observer of other tasks is left as it is
+        task.task = execute(task, () -> {
+            clear();
+            retrieve(task, task);
+            task.flush();
+        }, false);
+
+        return task;
     }
 
     /**
-     * Check and return cursor has column or not.
+     * Read folder summaries of {@link MediaAction} without loading its media objects.
+     * <p>
+     * Only id, folder, size and date columns are read in a single pass, so a folder list is shown
+     * without a full scan. Load media of an opened folder using
+     * {@link #query(Query)} with {@link Query#buckets(String...)}.
+     * Filter of {@link #query(Query)} is applied to summaries as well.
      */
-    private boolean isColumnIndexValid(Cursor cursor, int columnIndex) {
-        return columnIndex >= 0 && cursor != null && !cursor.isNull(columnIndex);
+    public MediaTask buckets(BucketObserver observer) {
+
+        preconditions();
+
+        MediaTask task = new MediaTask();
+        Handler handler = new Handler(Looper.getMainLooper());
+
+        this.task = task;
+
+        action.getQueue().execute(() -> {
+
+            ArrayList<MediaBucket> buckets = new ArrayList<>();
+            boolean completed;
+
+            synchronized (action.getSyncState()) {
+                completed = run(task, () -> retrieveBuckets(buckets), false);
+            }
+
+            handler.post(() -> {
+                task.finish();
+                if (observer == null) return;
+                if (completed) observer.onComplete(buckets);
+                else observer.onCancelled();
+            });
+        });
+
+        return task;
     }
 
     /**
-     * Save object.
+     * Load media page by page instead of whole collection at once.
+     * <p>
+     * Pages are read in sort order of {@link #query(Query)}, newest first by default, and each page
+     * starts after sort values and '_id' of last loaded row, so a page never skips or repeats
+     * objects when media is added while scrolling. Call {@link Pager#loadNext()} to load first page
+     * and again whenever consumer reaches the end of loaded objects.
+     *
+     * @param pageSize - number of media objects per page.
      */
-    private void saveObject(MediaObject object) {
+    public Pager page(int pageSize, PageObserver observer) {
 
-        save(object, action.getMap()); //save into folder wise map
+        preconditions();
 
-        if (!action.getList().contains(object)) { //save into list
-            action.getList().add(object);
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size should be greater than 0.");
         }
+
+        return new Pager(pageSize, observer);
     }
 
     /**
-     * Save object in particular folder.
+     * @return executor shared by all media tasks, tasks of an action are handed to it
+     * through {@link MediaAction#getQueue()}.
+     * <p>
+     * Pool is bounded and idle threads are released after {@link #POOL_KEEP_ALIVE_SECONDS},
+     * so nothing is left running once tasks are done.
      */
-    private void save(MediaObject object, HashMap<String, ArrayList<MediaObject>> map) {
+    static synchronized ExecutorService executor() {
 
-        String key = object.bucketName;
+        if (executor == null) {
 
-        if (key == null || key.trim().isEmpty()) return;
+            AtomicInteger count = new AtomicInteger();
 
-        if (!map.containsKey(key)) {
+            executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE
+                    , POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS
+                    , new LinkedBlockingQueue<>()
+                    , runnable -> {
+                Thread thread = new Thread(runnable, "RapidX-Media-" + count.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
 
-            ArrayList<MediaObject> arrayFileList = new ArrayList<>();
-            arrayFileList.add(object);
-            map.put(key, arrayFileList);
+            executor.allowCoreThreadTimeOut(true);
+        }
 
-        } else {
+        return executor;
+    }
+
+    /**
+     * Check pre-conditions before start.
+     */
+    void preconditions() {
+        if (context == null) {
+            throw new NullPointerException("Context should not be null. to fix add 'with()' method.");
+        }
+    }
+
+    /**
+     * Start retrieving media object using {@link android.content.ContentResolver}.
+     * <p>
+     * Only the columns of {@link MediaAction#getProjection()} are queried and their indices are
+     * resolved once per cursor, so each row is read through the {@link ColumnIndex} table.
+     *
+     * @param observer - observer of reading progress or null.
+     * @param stream   - stream to hand over read objects or null.
+     */
+    private void retrieve(MediaObserver observer, StreamTask stream) {
+
+        SyncState state = action.getSyncState();
+
+        try (Cursor cursor = query(action.getProjection(), null, null, sortOrder(), 0)) {
+
+            if (cursor == null) return;
+
+            ColumnIndex columns = new ColumnIndex(cursor);
+            prepareAlbumArts();
+            int count = cursor.getCount();
 
-            ArrayList<MediaObject> list = map.get(key);
+            while (!isCancelled() && cursor.moveToNext()) {
 
-            if (list != null && !list.contains(object)) {
-                list.add(object);
-                sort(list); //first sort the list by name and put in the map
-                map.put(key, list);
+                if (observer != null) {
+                    observer.onObserving(cursor.getPosition());
+                }
+
+                MediaObject object = readObject(cursor, columns);
+
+                saveObject(object, getValidColumnValue_Long(cursor, columns.id, -1));
+                state.track(cursor, columns, object);
+
+                if (stream != null && stream.offer(object)) {
+                    resolveAlbumArts();
+                    stream.push();
+                }
+
+                if (observer != null) {
+                    int progress = cursor.getPosition() * 100 / count;
+                    observer.onProgress(cursor.getPosition(), progress);
+                }
             }
+
+            state.scanned = !isCancelled();
+            state.fullScan = state.scanned;
+            state.query = Query.key(filter);
         }
+
+        sortBuckets();
+        resolveAlbumArts();
     }
 
     /**
-     * This function is only for {@link MediaAction#Audio} action.
+     * Load previous result from index file into sync state and publish it.
      *
-     * @return audio album thumbnail.
+     * @param observer - observer notified of restored snapshot or null.
+     * @return true if index is restored.
      */
-    public String getAlbumArt(Cursor cursor) {
+    private boolean restore(SyncState state, MediaObserver observer) {
 
-        long albumId = getValidColumnValue_Long(cursor, MediaStore.Audio.Media.ALBUM_ID, -1);
+        if (!withIndex || filter != null) return false;
 
-        if (albumId == -1) return null;
+        File file = MediaIndex.getFile(context, action);
+        MediaIndex.Entry entry = MediaIndex.read(file, action, MediaIndex.getStoreVersion(context));
+
+        if (entry == null) {
+            MediaIndex.delete(file);
+            return false;
+        }
+
+        clear();
+
+        for (int i = 0; i < entry.objects.length; i++) {
+            saveObject(entry.objects[i], entry.ids[i]);
+        }
+
+        sortBuckets();
+
+        state.generation = entry.generation;
+        state.date = entry.date;
+        state.id = entry.id;
+        state.scanned = true;
+
+        MediaSnapshot snapshot = publish();
+
+        new Handler(Looper.getMainLooper()).post(() -> {
+
+            action.apply(snapshot, true);
+
+            if (observer != null) {
+                observer.onRestored(snapshot);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Write completed scan result into index file.
+     * <p>
+     * Result of a full scan is written right away, changes applied later are written once
+     * sync state is left unchanged for {@link #INDEX_DELAY_MILLIS}, so a burst of syncs
+     * rewrites index file only once. A sync which changed nothing leaves index file as it is.
+     *
+     * @param snapshot - snapshot just published from sync state.
+     */
+    private void saveIndex(MediaSnapshot snapshot) {
 
-        Cursor cursorAlbum = context.getContentResolver().query(MediaStore.Audio.Albums.EXTERNAL_CONTENT_URI,
-                new String[]{MediaStore.Audio.Albums._ID, MediaStore.Audio.Albums.ALBUM_ART},
-                MediaStore.Audio.Albums._ID + "=?", new String[]{String.valueOf(albumId)}, null);
+        SyncState state = action.getSyncState();
 
-        String art = "";
+        if (!withIndex || columnar || filter != null || !state.isScanned()) return;
 
-        if (cursorAlbum != null && cursorAlbum.moveToFirst()) {
-            art = getValidColumnValue_String(cursor, MediaStore.Audio.Albums.ALBUM_ART);
+        if (!state.fullScan && snapshot.getChanges().isEmpty()) return;
+
+        if (state.fullScan) {
+            writeIndex(state);
+            return;
         }
 
-        if (cursorAlbum != null) {
-            cursorAlbum.close();
+        Runnable write = new Runnable() {
+            @Override
+            public void run() {
+                action.getQueue().execute(() -> {
+                    synchronized (state) {
+                        //a newer change scheduled its own write or index is already written
+                        if (state.indexWrite == this) writeIndex(state);
+                    }
+                });
+            }
+        };
+
+        state.indexWrite = write;
+        new Handler(Looper.getMainLooper()).postDelayed(write, INDEX_DELAY_MILLIS);
+    }
+
+    /**
+     * Write sync state into index file, call with lock of sync state held.
+     */
+    private void writeIndex(SyncState state) {
+
+        state.fullScan = false;
+        state.indexWrite = null;
+
+        if (!state.isScanned()) return; //state was cleared meanwhile
+
+        File file = MediaIndex.getFile(context, action);
+        long[] ids = new long[state.list.size()];
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = parseId(state.list.get(i));
         }
 
-        return art;
+        try {
+            MediaIndex.write(file, action, MediaIndex.getStoreVersion(context)
+                    , state.generation, state.date, state.id
+                    , ids, state.list);
+        } catch (IOException e) {
+            e.printStackTrace();
+            MediaIndex.delete(file);
+        }
     }
 
     /**
-     * Sort media list by name.
+     * @return media id of object or -1.
      */
-    private void sort(ArrayList<MediaObject> list) {
+    static long parseId(MediaObject object) {
         try {
-            Collections.sort(list, (o1, o2) -> {
-                boolean isNull = o1 == null || o1.name == null
-                        || o2 == null || o2.name == null;
-                return isNull
-                        ? -1
-                        : o1.name.compareTo(o2.name);
-            });
-        } catch (Exception e) {
-            //
+            return Long.parseLong(object.id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Start retrieving media column wise into {@link MediaTable}.
+     * <p>
+     * Rows are read through a single reusable {@link MediaObject}.
+     *
+     * @param observer - observer of reading progress or null.
+     */
+    private void retrieveTable(MediaObserver observer) {
+
+        MediaTable.Builder builder;
+
+        try (Cursor cursor = query(action.getProjection(), null, null, sortOrder(), 0)) {
+
+            if (cursor == null) return;
+
+            ColumnIndex columns = new ColumnIndex(cursor);
+            MediaObject row = new MediaObject();
+            int count = cursor.getCount();
+
+            builder = new MediaTable.Builder(count);
+
+            while (!isCancelled() && cursor.moveToNext()) {
+
+                if (observer != null) {
+                    observer.onObserving(cursor.getPosition());
+                }
+
+                setCursorCommonObject(cursor, columns, row);
+
+                if (action == MediaAction.Audio || action == MediaAction.Video) {
+                    setCursorObject(cursor, columns, row);
+                }
+
+                builder.add(row
+                        , getValidColumnValue_Long(cursor, columns.id, -1)
+                        , getValidColumnValue_Long(cursor, columns.albumId, -1));
+                action.getSyncState().stats.add(row, true);
+
+                if (observer != null) {
+                    int progress = (cursor.getPosition() + 1) * 100 / count;
+                    observer.onProgress(cursor.getPosition(), progress);
+                }
+            }
+        }
+
+        if (action == MediaAction.Audio && withAlbumArt) {
+            resolveAlbumArts(builder);
+        }
+
+        table = builder.build();
+    }
+
+    /**
+     * Read objects inserted or modified after previous scan and replace their old copies,
+     * each at the place a full scan would give it.
+     *
+     * @param observer - observer of reading progress or null.
+     */
+    private void retrieveChanges(SyncState state, MediaObserver observer) {
+
+        String selection;
+        String[] args;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            selection = MediaColumns.GENERATION_MODIFIED + ">?";
+            args = new String[]{String.valueOf(state.generation)};
+        } else {
+            //'date_modified' is in seconds, so same second modifications are read again
+            selection = MediaColumns.DATE_MODIFIED + ">=? OR " + MediaColumns.ID + ">?";
+            args = new String[]{String.valueOf(state.date), String.valueOf(state.id)};
+        }
+
+        SortOrder order = order();
+
+        try (Cursor cursor = query(action.getProjection(), selection, args, null, 0)) {
+
+            if (cursor == null) return;
+
+            ColumnIndex columns = new ColumnIndex(cursor);
+            prepareAlbumArts();
+            int count = cursor.getCount();
+
+            while (!isCancelled() && cursor.moveToNext()) {
+
+                if (observer != null) {
+                    observer.onObserving(cursor.getPosition());
+                }
+
+                MediaObject object = readObject(cursor, columns);
+
+                saveObject(object, getValidColumnValue_Long(cursor, columns.id, -1), order);
+                state.track(cursor, columns, object);
+
+                if (observer != null) {
+                    int progress = (cursor.getPosition() + 1) * 100 / count;
+                    observer.onProgress(cursor.getPosition(), progress);
+                }
+            }
+        }
+
+        sortBuckets();
+        resolveAlbumArts();
+    }
+
+    /**
+     * Remove objects which no longer exist in media store using id only query.
+     */
+    private void removeDeleted(SyncState state) {
+
+        if (isCancelled()) return;
+
+        LongMap<Boolean> ids;
+
+        try (Cursor cursor = query(new String[]{MediaColumns.ID})) {
+
+            //every existing id is already known after reading changes, so same count means nothing deleted
+            if (cursor == null || cursor.getCount() == state.objects.size()) return;
+
+            int index = cursor.getColumnIndex(MediaColumns.ID);
+            ids = new LongMap<>(cursor.getCount());
+
+            while (!isCancelled() && cursor.moveToNext()) {
+                ids.put(getValidColumnValue_Long(cursor, index, -1), Boolean.TRUE);
+            }
+        }
+
+        if (isCancelled()) return;
+
+        HashSet<MediaObject> removed = new HashSet<>();
+
+        for (long id : state.objects.keys()) {
+            if (!ids.containsKey(id)) {
+                removed.add(state.remove(id));
+            }
+        }
+
+        removeAll(removed);
+    }
+
+    /**
+     * Read objects of given ids again, ids which are no longer available are removed.
+     */
+    private void retrieveIds(SyncState state, long[] ids) {
+
+        LongMap<Boolean> found = new LongMap<>(ids.length);
+        SortOrder order = order();
+
+        prepareAlbumArts();
+
+        for (int from = 0; from < ids.length && !isCancelled(); from += MAX_QUERY_ARGS) {
+
+            int to = Math.min(ids.length, from + MAX_QUERY_ARGS);
+            StringBuilder selection = new StringBuilder(MediaColumns.ID).append(" IN (");
+            String[] args = new String[to - from];
+
+            for (int i = from; i < to; i++) {
+                selection.append(i == from ? "?" : ",?");
+                args[i - from] = String.valueOf(ids[i]);
+            }
+
+            try (Cursor cursor = query(action.getProjection(), selection.append(')').toString(), args, null, 0)) {
+
+                if (cursor == null) return; //unknown, keep objects as they are
+
+                ColumnIndex columns = new ColumnIndex(cursor);
+
+                while (!isCancelled() && cursor.moveToNext()) {
+                    MediaObject object = readObject(cursor, columns);
+                    long id = getValidColumnValue_Long(cursor, columns.id, -1);
+                    saveObject(object, id, order);
+                    state.track(cursor, columns, object);
+                    found.put(id, Boolean.TRUE);
+                }
+            }
+        }
+
+        if (isCancelled()) return;
+
+        HashSet<MediaObject> removed = new HashSet<>();
+
+        for (long id : ids) {
+            MediaObject old = found.containsKey(id) ? null : state.remove(id);
+            if (old != null) removed.add(old);
+        }
+
+        removeAll(removed);
+        sortBuckets();
+        resolveAlbumArts();
+    }
+
+    /**
+     * Query {@link MediaAction#getUri()} with given projection.
+     */
+    private Cursor query(String[] projection) {
+        return query(projection, null, null, null, 0);
+    }
+
+    /**
+     * @return order of scanned list, sort order of {@link Query} if it has one.
+     */
+    private SortOrder order() {
+        return SortOrder.of(filter);
+    }
+
+    /**
+     * @return sort order of a full scan.
+     */
+    private String sortOrder() {
+        return order().toSql();
+    }
+
+    /**
+     * Query {@link MediaAction#getUri()} with given projection, selection and sort order.
+     * <p>
+     * Selection is combined with selection of {@link #query(Query)} and its sort order is used
+     * if no sort order is given.
+     * <p>
+     * Some OEM providers reject columns they do not know, in that case query again with all columns,
+     * {@link ColumnIndex} treats missing columns as empty values.
+     *
+     * @param limit - maximum rows to return, 0 for no limit.
+     */
+    private Cursor query(String[] projection, String selection, String[] args, String sortOrder, int limit) {
+
+        if (filter != null) {
+            selection = Query.and(filter.getSelection(), selection);
+            args = Query.concat(filter.getSelectionArgs(), args);
+            if (sortOrder == null) sortOrder = filter.getSortOrder();
+        }
+
+        try {
+            return queryLimit(projection, selection, args, sortOrder, limit);
+        } catch (IllegalArgumentException e) {
+            if (projection == null) throw e;
+            return queryLimit(null, selection, args, sortOrder, limit);
+        }
+    }
+
+    /**
+     * SDK version is >= 30(R)? pass limit with query arguments
+     * as media provider no longer accepts 'LIMIT' in sort order, else append it to sort order.
+     */
+    private Cursor queryLimit(String[] projection, String selection, String[] args, String sortOrder, int limit) {
+
+        ContentResolver resolver = context.getContentResolver();
+        MediaTask task = running;
+        CancellationSignal signal = task != null ? task.signal : null;
+
+        if (limit <= 0) {
+            return resolver.query(action.getUri(), projection, selection, args, sortOrder, signal);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            Bundle bundle = new Bundle();
+            bundle.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection);
+            bundle.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, args);
+            bundle.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, sortOrder);
+            bundle.putInt(ContentResolver.QUERY_ARG_LIMIT, limit);
+            return resolver.query(action.getUri(), projection, bundle, signal);
+        }
+
+        return resolver.query(action.getUri(), projection, selection, args, sortOrder + " LIMIT " + limit, signal);
+    }
+
+    /**
+     * @return media object of current cursor row.
+     */
+    MediaObject readObject(Cursor cursor, ColumnIndex columns) {
+
+        MediaObject object = new MediaObject();
+        setCursorCommonObject(cursor, columns, object);
+
+        if (action == MediaAction.Audio || action == MediaAction.Video) {
+            setCursorObject(cursor, columns, object);
+        }
+
+        if (action == MediaAction.Audio && withAlbumArt) {
+            object.art = getAlbumArt(cursor, columns, object);
+        }
+
+        return object;
+    }
+
+    /**
+     * Set common cursor data.
+     */
+    private void setCursorCommonObject(Cursor cursor, ColumnIndex columns, MediaObject object) {
+        object.id = getValidColumnValue_String(cursor, columns.id);
+        object.bucketId = getValidColumnValue_String(cursor, columns.bucketId);
+        object.bucketName = getValidColumnValue_String(cursor, columns.bucketName);
+        object.uri = getValidColumnValue_String(cursor, columns.data);
+        object.name = getValidColumnValue_String(cursor, columns.name);
+        object.mime = getValidColumnValue_String(cursor, columns.mime);
+        object.size = getValidColumnValue_Long(cursor, columns.size, 0);
+        object.date = getValidColumnValue_Long(cursor, columns.date, 0);
+
+        if (object.bucketName.isEmpty()) {
+            String relativePath = getValidColumnValue_String(cursor, columns.relativePath);
+            String name = relativePath.isEmpty() ? getParentName(object.uri) : getLastName(relativePath);
+            object.bucketName = name != null ? name : "Unknown";
+        }
+
+        if (object.bucketId.isEmpty()) {
+            //no folder columns before Q for audio, folder is parent path, see Query#buckets(String...)
+            String parent = getParentPath(object.uri);
+            if (parent != null) object.bucketId = parent;
+        }
+    }
+
+    /**
+     * @return parent path of path or null, path is not touched on file system.
+     */
+    static String getParentPath(String path) {
+
+        if (path == null) return null;
+
+        int end = path.lastIndexOf('/');
+
+        return end <= 0 ? null : path.substring(0, end);
+    }
+
+    /**
+     * @return name of parent folder of path or null, path is not touched on file system.
+     */
+    static String getParentName(String path) {
+
+        String parent = getParentPath(path);
+
+        return parent == null ? null : getLastName(parent);
+    }
+
+    /**
+     * @return last name of path, trailing '/' ignored, or null if path is empty.
+     */
+    static String getLastName(String path) {
+
+        int end = path.length();
+
+        while (end > 0 && path.charAt(end - 1) == '/') end--;
+
+        if (end == 0) return null;
+
+        return path.substring(path.lastIndexOf('/', end - 1) + 1, end);
+    }
+
+    /**
+     * Group media rows by folder in a single pass, folders are sorted by name.
+     */
+    private void retrieveBuckets(ArrayList<MediaBucket> buckets) {
+
+        HashMap<String, MediaBucket> map = new HashMap<>();
+
+        try (Cursor cursor = query(action.getBucketProjection())) {
+
+            if (cursor == null) return;
+
+            ColumnIndex columns = new ColumnIndex(cursor);
+
+            while (!isCancelled() && cursor.moveToNext()) {
+
+                String bucketId = getValidColumnValue_String(cursor, columns.bucketId);
+                String bucketName = getValidColumnValue_String(cursor, columns.bucketName);
+
+                if (bucketId == null || bucketId.isEmpty()) {
+                    //no folder columns before Q for audio, folder is parent path
+                    String path = getValidColumnValue_String(cursor, columns.data);
+                    String parent = getParentPath(path);
+                    bucketId = parent == null ? "" : parent;
+                    bucketName = getParentName(path);
+                }
+
+                MediaBucket bucket = map.get(bucketId);
+
+                if (bucket == null) {
+                    bucket = new MediaBucket(action.getUri());
+                    bucket.id = bucketId;
+                    bucket.name = bucketName == null || bucketName.isEmpty() ? "Unknown" : bucketName;
+                    map.put(bucketId, bucket);
+                }
+
+                long id = getValidColumnValue_Long(cursor, columns.id, -1);
+                long date = getValidColumnValue_Long(cursor, columns.date, 0);
+
+                bucket.count++;
+                bucket.size += getValidColumnValue_Long(cursor, columns.size, 0);
+
+                if (bucket.count == 1 || date > bucket.date || (date == bucket.date && id > bucket.coverId)) {
+                    bucket.date = date;
+                    bucket.coverId = id;
+                }
+            }
+        }
+
+        buckets.addAll(map.values());
+        Collections.sort(buckets, (b1, b2) -> b1.name.compareTo(b2.name));
+    }
+
+    /**
+     * Set data using {@link Cursor}.
+     */
+    private void setCursorObject(Cursor cursor, ColumnIndex columns, MediaObject object) {
+        object.album = getValidColumnValue_String(cursor, columns.album);
+        object.artist = getValidColumnValue_String(cursor, columns.artist);
+        object.composer = getValidColumnValue_String(cursor, columns.composer);
+        object.genre = getValidColumnValue_String(cursor, columns.genre);
+        object.year = getValidColumnValue_String(cursor, columns.year);
+        object.resolution = getValidColumnValue_String(cursor, columns.resolution);
+        object.duration = getValidColumnValue_Long(cursor, columns.duration, 0);
+    }
+
+    /**
+     * @return valid column {@link String} value.
+     */
+    private String getValidColumnValue_String(Cursor cursor, int columnIndex) {
+        if (isColumnIndexValid(cursor, columnIndex)) {
+            return cursor.getString(columnIndex);
+        } else return "";
+    }
+
+    /**
+     * @return valid column {@link Long} value.
+     */
+    private long getValidColumnValue_Long(Cursor cursor, int columnIndex, long def) {
+        if (isColumnIndexValid(cursor, columnIndex)) {
+            return cursor.getLong(columnIndex);
+        } else return def;
+    }
+
+    /**
+     * Check and return cursor has column or not.
+     */
+    private boolean isColumnIndexValid(Cursor cursor, int columnIndex) {
+        return columnIndex >= 0 && cursor != null && !cursor.isNull(columnIndex);
+    }
+
+    /**
+     * Save object read in cursor order, see {@link #saveObject(MediaObject, long, SortOrder)}.
+     */
+    private void saveObject(MediaObject object, long id) {
+        saveObject(object, id, null);
+    }
+
+    /**
+     * Save object.
+     * <p>
+     * Objects are de-duplicated by id, an object with already saved id replaces the old one
+     * at its position in list, or is moved if its sort key changed.
+     *
+     * @param id    - media id of object.
+     * @param order - order to keep list in, null to append objects in cursor order.
+     */
+    private void saveObject(MediaObject object, long id, SortOrder order) {
+
+        SyncState state = action.getSyncState();
+        MediaObject old = state.save(object, id, order); //save into list
+
+        if (old != null) {
+            state.stats.remove(old);
+            state.stats.add(object, false);
+            replace(old, object, state.map);
+            return;
+        }
+
+        state.stats.add(object, false);
+
+        save(object, state.map); //save into folder wise map
+    }
+
+    /**
+     * Remove objects whose file is missing, see {@link #validate(boolean)}.
+     */
+    private void removeMissing() {
+
+        if (!validate || isCancelled()) return;
+
+        SyncState state = action.getSyncState();
+        DirectoryCache directories = new DirectoryCache();
+        HashSet<MediaObject> missing = new HashSet<>();
+
+        for (int i = 0; i < state.list.size() && !isCancelled(); i++) {
+            MediaObject object = state.list.get(i);
+            if (!directories.exists(object.uri)) missing.add(object);
+        }
+
+        for (MediaObject object : missing) {
+            state.remove(parseId(object));
+        }
+
+        removeAll(missing);
+    }
+
+    /**
+     * Remove objects of given ids whose file is missing, other objects are not checked.
+     */
+    private void removeMissing(long[] ids) {
+
+        if (!validate || isCancelled()) return;
+
+        SyncState state = action.getSyncState();
+        DirectoryCache directories = new DirectoryCache();
+        HashSet<MediaObject> missing = new HashSet<>();
+
+        for (long id : ids) {
+            MediaObject object = state.objects.get(id);
+            if (object != null && !directories.exists(object.uri)) missing.add(state.remove(id));
+        }
+
+        removeAll(missing);
+    }
+
+    /**
+     * Replace old object in its folder, or move it to folder of new object.
+     */
+    private void replace(MediaObject old, MediaObject object, HashMap<String, ArrayList<MediaObject>> map) {
+
+        ArrayList<MediaObject> list = map.get(old.bucketName);
+        int index = list == null ? -1 : list.indexOf(old);
+
+        if (index != -1 && old.bucketName.equals(object.bucketName)) {
+            list.set(index, object);
+            dirtyBuckets.add(object.bucketName); //sort key may have changed
+            return;
+        }
+
+        if (index != -1) {
+            list.remove(index);
+            if (list.isEmpty()) map.remove(old.bucketName);
+        }
+
+        save(object, map);
+    }
+
+    /**
+     * Remove objects from list and their folders in a single pass of each list.
+     * Positions of objects after a removed one are moved back.
+     */
+    private void removeAll(HashSet<MediaObject> objects) {
+
+        if (objects.isEmpty()) return;
+
+        SyncState state = action.getSyncState();
+        int[] removed = new int[objects.size()]; //positions of removed objects
+        int count = 0;
+        int size = 0;
+
+        for (int i = 0; i < state.list.size(); i++) {
+
+            MediaObject object = state.list.get(i);
+            long id = parseId(object);
+
+            if (objects.contains(object)) {
+                if (state.objects.get(id) == null) state.positions.remove(id);
+                if (count < removed.length) removed[count++] = i;
+                continue;
+            }
+
+            if (size != i) {
+                state.list.set(size, object);
+                state.positions.put(id, size);
+            }
+
+            size++;
+        }
+
+        state.list.subList(size, state.list.size()).clear();
+
+        //from end, so each position is still valid when its removal is applied
+        for (int i = count - 1; i >= 0; i--) {
+            state.recordRemove(removed[i]);
+        }
+
+        for (MediaObject object : objects) {
+            state.stats.remove(object);
+        }
+
+        Iterator<ArrayList<MediaObject>> iterator = state.map.values().iterator();
+
+        while (iterator.hasNext()) {
+            ArrayList<MediaObject> list = iterator.next();
+            list.removeAll(objects);
+            if (list.isEmpty()) iterator.remove();
+        }
+    }
+
+    /**
+     * Save object in particular folder.
+     */
+    private void save(MediaObject object, HashMap<String, ArrayList<MediaObject>> map) {
+
+        String key = object.bucketName;
+
+        if (key == null || key.trim().isEmpty()) return;
+
+        ArrayList<MediaObject> list = map.get(key);
+
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(key, list);
+        }
+
+        list.add(object);
+        dirtyBuckets.add(key); //sorted once by name at the end of scan
+    }
+
+    /**
+     * Sort folders which received objects since last sort.
+     * <p>
+     * Folders are sorted like scanned list if {@link Query} has its own sort order.
+     */
+    private void sortBuckets() {
+
+        SortOrder order = filter != null && filter.getSortOrder() != null ? order() : null;
+
+        for (String key : dirtyBuckets) {
+            ArrayList<MediaObject> list = action.getSyncState().map.get(key);
+            if (list == null) continue;
+            if (order != null) Collections.sort(list, order);
+            else sort(list);
+        }
+
+        dirtyBuckets.clear();
+    }
+
+    /**
+     * This function is only for {@link MediaAction#Audio} action.
+     *
+     * @return audio album thumbnail.
+     */
+    public String getAlbumArt(Cursor cursor) {
+
+        long albumId = getValidColumnValue_Long(cursor, cursor.getColumnIndex(MediaColumns.ALBUM_ID), -1);
+
+        if (albumId == -1) return null;
+
+        String art = getCachedAlbumArt(albumId);
+
+        if (art == null) {
+            loadAlbumArts(new long[]{albumId}, 1);
+            art = getCachedAlbumArt(albumId);
+        }
+
+        return art;
+    }
+
+    /**
+     * @return cached album thumbnail or null if album is not cached yet.
+     * Object is queued and its thumbnail is set by {@link #resolveAlbumArts()}.
+     */
+    private String getAlbumArt(Cursor cursor, ColumnIndex columns, MediaObject object) {
+
+        long albumId = getValidColumnValue_Long(cursor, columns.albumId, -1);
+
+        if (albumId == -1) return null;
+
+        String art = getCachedAlbumArt(albumId);
+
+        if (art == null) {
+            ArrayList<MediaObject> objects = pendingArts.get(albumId);
+            if (objects == null) {
+                objects = new ArrayList<>();
+                pendingArts.put(albumId, objects);
+            }
+            objects.add(object);
+        }
+
+        return art;
+    }
+
+    /**
+     * Load all album thumbnails with a single query when cache is empty.
+     */
+    private void prepareAlbumArts() {
+
+        if (action != MediaAction.Audio || !withAlbumArt) return;
+
+        synchronized (albumArts) {
+            if (albumArts.size() > 0) return;
+        }
+
+        loadAlbumArts(null, 0);
+    }
+
+    /**
+     * Load thumbnails of albums queued while reading and set them to waiting objects.
+     */
+    private void resolveAlbumArts() {
+
+        if (pendingArts.size() == 0) return;
+
+        long[] albumIds = pendingArts.keys();
+        loadAlbumArts(albumIds, albumIds.length);
+
+        for (long albumId : albumIds) {
+            String art = getCachedAlbumArt(albumId);
+            for (MediaObject object : pendingArts.get(albumId)) {
+                object.art = art;
+            }
+        }
+
+        pendingArts.clear();
+    }
+
+    /**
+     * Set album thumbnails of all table rows, loading albums which are not cached yet at once.
+     */
+    private void resolveAlbumArts(MediaTable.Builder builder) {
+
+        prepareAlbumArts();
+
+        LongMap<Boolean> missing = new LongMap<>();
+
+        for (int row = 0; row < builder.size(); row++) {
+            long albumId = builder.getAlbumId(row);
+            if (albumId != -1 && getCachedAlbumArt(albumId) == null) {
+                missing.put(albumId, Boolean.TRUE);
+            }
+        }
+
+        long[] albumIds = missing.keys();
+        loadAlbumArts(albumIds, albumIds.length);
+
+        for (int row = 0; row < builder.size(); row++) {
+            long albumId = builder.getAlbumId(row);
+            builder.setArt(row, albumId == -1 ? null : getCachedAlbumArt(albumId));
+        }
+    }
+
+    /**
+     * Query album thumbnails into cache, albums without thumbnail are cached with empty value
+     * so they are never queried again.
+     *
+     * @param albumIds - albums to load or null to load all albums.
+     * @param count    - number of album ids.
+     */
+    private void loadAlbumArts(long[] albumIds, int count) {
+
+        LongMap<String> arts = new LongMap<>();
+
+        //query in chunks as sqlite limits number of arguments
+        for (int from = 0; from < count || (albumIds == null && from == 0); from += MAX_QUERY_ARGS) {
+
+            String selection = null;
+            String[] args = null;
+
+            if (albumIds != null) {
+
+                int to = Math.min(count, from + MAX_QUERY_ARGS);
+                StringBuilder builder = new StringBuilder(MediaStore.Audio.Albums._ID).append(" IN (");
+                args = new String[to - from];
+
+                for (int i = from; i < to; i++) {
+                    builder.append(i == from ? "?" : ",?");
+                    args[i - from] = String.valueOf(albumIds[i]);
+                }
+
+                selection = builder.append(')').toString();
+            }
+
+            try (Cursor cursor = context.getContentResolver().query(MediaStore.Audio.Albums.EXTERNAL_CONTENT_URI,
+                    new String[]{MediaStore.Audio.Albums._ID, MediaStore.Audio.Albums.ALBUM_ART},
+                    selection, args, null)) {
+
+                if (cursor == null) continue;
+
+                int idIndex = cursor.getColumnIndex(MediaStore.Audio.Albums._ID);
+                int artIndex = cursor.getColumnIndex(MediaStore.Audio.Albums.ALBUM_ART);
+
+                while (cursor.moveToNext()) {
+                    arts.put(getValidColumnValue_Long(cursor, idIndex, -1), getValidColumnValue_String(cursor, artIndex));
+                }
+            }
+        }
+
+        synchronized (albumArts) {
+
+            for (long albumId : arts.keys()) {
+                albumArts.put(albumId, arts.get(albumId));
+            }
+
+            for (int i = 0; albumIds != null && i < count; i++) {
+                if (albumArts.get(albumIds[i]) == null) albumArts.put(albumIds[i], "");
+            }
+        }
+    }
+
+    /**
+     * @return cached album thumbnail.
+     */
+    private static String getCachedAlbumArt(long albumId) {
+        synchronized (albumArts) {
+            return albumArts.get(albumId);
+        }
+    }
+
+    /**
+     * Sort media list by name.
+     */
+    private void sort(ArrayList<MediaObject> list) {
+        try {
+            Collections.sort(list, (o1, o2) -> {
+                boolean isNull = o1 == null || o1.name == null
+                        || o2 == null || o2.name == null;
+                return isNull
+                        ? -1
+                        : o1.name.compareTo(o2.name);
+            });
+        } catch (Exception e) {
+            //
+        }
+    }
+
+    /**
+     * Clear sync state.
+     */
+    private void clear() {
+        action.getSyncState().clear();
+    }
+
+    /**
+     * Filter and sort order of a media query, compiled into media store selection and sort order.
+     * <p>
+     * All conditions are combined with AND and all values are passed as selection arguments.
+     */
+    public static final class Query {
+
+        private final StringBuilder selection = new StringBuilder();
+        private final ArrayList<String> args = new ArrayList<>();
+        private final StringBuilder sortOrder = new StringBuilder();
+        private final ArrayList<String> sortColumns = new ArrayList<>();
+        private final ArrayList<Boolean> sortAscending = new ArrayList<>();
+
+        /**
+         * Only media of given mime types, a type ending with '*' like 'image/*' matches all subtypes.
+         */
+        public Query mimeTypes(String... mimeTypes) {
+
+            if (mimeTypes.length == 0) return this;
+
+            StringBuilder builder = new StringBuilder();
+
+            for (String mime : mimeTypes) {
+                if (builder.length() > 0) builder.append(" OR ");
+                if (mime.endsWith("*")) {
+                    builder.append(MediaColumns.MIME_TYPE).append(" LIKE ?");
+                    args.add(mime.substring(0, mime.length() - 1) + "%");
+                } else {
+                    builder.append(MediaColumns.MIME_TYPE).append("=?");
+                    args.add(mime);
+                }
+            }
+
+            return where(builder.toString());
+        }
+
+        /**
+         * Only media of at least given size in bytes.
+         */
+        public Query minSize(long bytes) {
+            args.add(String.valueOf(bytes));
+            return where(MediaColumns.SIZE + ">=?");
+        }
+
+        /**
+         * Only media of at least given duration in milliseconds,
+         * for {@link MediaAction#Audio} and {@link MediaAction#Video} only.
+         */
+        public Query minDuration(long millis) {
+            args.add(String.valueOf(millis));
+            return where(MediaColumns.DURATION + ">=?");
+        }
+
+        /**
+         * Only media modified within given range.
+         *
+         * @param from - seconds since epoch, inclusive.
+         * @param to   - seconds since epoch, inclusive.
+         */
+        public Query modifiedBetween(long from, long to) {
+            args.add(String.valueOf(from));
+            args.add(String.valueOf(to));
+            return where(MediaColumns.DATE_MODIFIED + " BETWEEN ? AND ?");
+        }
+
+        /**
+         * Only media of given folders.
+         * <p>
+         * Audio has no folder columns before Q, its folder id is parent path of media,
+         * such ids select media directly inside that path instead of by 'bucket_id'.
+         *
+         * @param bucketIds - folder ids, see {@link MediaObject#bucketId}.
+         */
+        public Query buckets(String... bucketIds) {
+
+            if (bucketIds.length == 0) return this;
+
+            StringBuilder builder = new StringBuilder();
+            int count = 0;
+
+            for (String bucketId : bucketIds) {
+                if (bucketId.startsWith("/")) continue;
+                builder.append(count++ == 0 ? "?" : ",?");
+                args.add(bucketId);
+            }
+
+            if (count > 0) builder.insert(0, MediaColumns.BUCKET_ID + " IN (").append(')');
+
+            for (String bucketId : bucketIds) {
+                if (!bucketId.startsWith("/")) continue;
+                //GLOB is case sensitive like paths, '*' of a single level never matches nested folders
+                if (builder.length() > 0) builder.append(" OR ");
+                builder.append('(').append(MediaColumns.DATA).append(" GLOB ? AND ")
+                        .append(MediaColumns.DATA).append(" NOT GLOB ?)");
+                String parent = escapeGlob(bucketId);
+                args.add(parent + "/*");
+                args.add(parent + "/*/*");
+            }
+
+            return where(builder.toString());
+        }
+
+        /**
+         * @return text matching itself in a GLOB pattern.
+         */
+        static String escapeGlob(String text) {
+            StringBuilder builder = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '*' || c == '?' || c == '[') builder.append('[').append(c).append(']');
+                else builder.append(c);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Sort media by given key, can be called again for secondary keys.
+         * Folders are kept in the same order instead of sorting them by name.
+         */
+        public Query sortBy(Sort sort, boolean ascending) {
+            if (sortOrder.length() > 0) sortOrder.append(", ");
+            sortOrder.append(sort.column).append(ascending ? " ASC" : " DESC");
+            sortColumns.add(sort.column);
+            sortAscending.add(ascending);
+            return this;
+        }
+
+        /**
+         * @return compiled selection or null.
+         */
+        public String getSelection() {
+            return selection.length() == 0 ? null : selection.toString();
+        }
+
+        /**
+         * @return compiled selection arguments or null.
+         */
+        public String[] getSelectionArgs() {
+            return args.isEmpty() ? null : args.toArray(new String[0]);
+        }
+
+        /**
+         * @return compiled sort order or null.
+         */
+        public String getSortOrder() {
+            return sortOrder.length() == 0 ? null : sortOrder.toString();
+        }
+
+        private Query where(String condition) {
+            if (selection.length() > 0) selection.append(" AND ");
+            selection.append('(').append(condition).append(')');
+            return this;
+        }
+
+        /**
+         * @return text which is equal for queries of same selection and sort order, null for no query.
+         */
+        static String key(Query query) {
+            if (query == null) return null;
+            return query.selection + "|" + query.args + "|" + query.sortOrder;
+        }
+
+        /**
+         * @return both selections combined with AND.
+         */
+        static String and(String s1, String s2) {
+            if (s1 == null) return s2;
+            if (s2 == null) return s1;
+            return "(" + s1 + ") AND (" + s2 + ")";
+        }
+
+        /**
+         * @return both arguments in order.
+         */
+        static String[] concat(String[] a1, String[] a2) {
+            if (a1 == null) return a2;
+            if (a2 == null) return a1;
+            String[] result = new String[a1.length + a2.length];
+            System.arraycopy(a1, 0, result, 0, a1.length);
+            System.arraycopy(a2, 0, result, a1.length, a2.length);
+            return result;
+        }
+
+        /**
+         * Sort keys of {@link Query#sortBy(Sort, boolean)}.
+         */
+        public enum Sort {
+            Name(MediaColumns.DISPLAY_NAME),
+            Date(MediaColumns.DATE_MODIFIED),
+            Size(MediaColumns.SIZE),
+            Duration(MediaColumns.DURATION);
+
+            private final String column;
+
+            Sort(String column) {
+                this.column = column;
+            }
+        }
+    }
+
+    /**
+     * Loads {@link MediaAction} objects in windows of fixed size.
+     * <p>
+     * Each loaded page is published as a new {@link MediaAction#getSnapshot()} as well,
+     * so snapshot always contains all loaded pages. Changes of a page snapshot are the inserted
+     * range of the page, they are never computed by comparing loaded objects.
+     */
+    public class Pager {
+
+        private final int pageSize;
+        private final PageObserver observer;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final String[] keys; //sort columns, '_id' last as tie-breaker
+        private final boolean[] ascending;
+        private final String sortOrder;
+        private final String[] projection;
+
+        private String[] lastValues; //sort values of last loaded row, null before first page
+        private int page;
+        private boolean hasMore = true;
+        private boolean isLoading;
+
+        Pager(int pageSize, PageObserver observer) {
+
+            this.pageSize = pageSize;
+            this.observer = observer;
+
+            int count = filter == null ? 0 : filter.sortColumns.size();
+            keys = new String[count + 1];
+            ascending = new boolean[count + 1];
+
+            StringBuilder order = new StringBuilder();
+            ArrayList<String> columns = new ArrayList<>(Arrays.asList(action.getProjection()));
+
+            for (int i = 0; i <= count; i++) {
+                keys[i] = i < count ? filter.sortColumns.get(i) : MediaColumns.ID;
+                ascending[i] = i < count && filter.sortAscending.get(i);
+                if (i > 0) order.append(", ");
+                order.append(keys[i]).append(ascending[i] ? " ASC" : " DESC");
+                if (!columns.contains(keys[i])) columns.add(keys[i]); //last row is read by sort columns
+            }
+
+            sortOrder = order.toString();
+            projection = columns.toArray(new String[0]);
+        }
+
+        /**
+         * Load next page, ignored if a page is loading or all pages are loaded.
+         * Call from main thread.
+         */
+        public void loadNext() {
+
+            if (isLoading || !hasMore) return;
+
+            isLoading = true;
+
+            MediaTask task = new MediaTask();
+            Media.this.task = task;
+
+            action.getQueue().execute(() -> {
+
+                ArrayList<MediaObject> objects = new ArrayList<>();
+                MediaSnapshot snapshot = null;
+                boolean isFirst = page == 0;
+                String[] firstValues = lastValues;
+
+                synchronized (action.getSyncState()) {
+
+                    SyncState state = action.getSyncState();
+                    int from = isFirst ? 0 : state.list.size();
+
+                    if (run(task, () -> {
+                        if (isFirst) clear();
+                        retrievePage(objects);
+                    })) {
+                        //page is appended unless another task replaced snapshot or page had loaded rows,
+                        //compare objects only then
+                        MediaSnapshot previous = action.snapshot.get();
+                        boolean isAppended = previous.size() == from && state.list.size() == from + objects.size();
+                        ChangeSet changes = isFirst
+                                ? ChangeSet.reload(previous.getVersion())
+                                : isAppended
+                                ? ChangeSet.inserted(previous.getVersion(), from, objects.size())
+                                : null;
+                        snapshot = publish(changes);
+                    } else {
+                        lastValues = firstValues; //page is read again on next load
+                    }
+                }
+
+                MediaSnapshot result = snapshot;
+
+                handler.post(() -> {
+
+                    task.finish();
+
+                    if (result == null) {
+                        isLoading = false;
+                        return;
+                    }
+
+                    action.apply(result, !isFirst);
+
+                    isLoading = false;
+                    hasMore = objects.size() == pageSize;
+
+                    if (observer != null) {
+                        observer.onPage(page++, objects);
+                        if (!hasMore) observer.onComplete();
+                    }
+                });
+            });
+        }
+
+        /**
+         * @return true if more pages are available to load.
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        /**
+         * @return true if a page is currently loading.
+         */
+        public boolean isLoading() {
+            return isLoading;
+        }
+
+        /**
+         * Read objects which sort after last row of previous page.
+         */
+        private void retrievePage(ArrayList<MediaObject> objects) {
+
+            ArrayList<String> args = new ArrayList<>();
+            String selection = keyset(args);
+
+            try (Cursor cursor = query(projection
+                    , selection
+                    , args.isEmpty() ? null : args.toArray(new String[0])
+                    , sortOrder
+                    , pageSize)) {
+
+                if (cursor == null) return;
+
+                ColumnIndex columns = new ColumnIndex(cursor);
+                prepareAlbumArts();
+
+                while (!isCancelled() && cursor.moveToNext()) {
+                    MediaObject object = readObject(cursor, columns);
+                    saveObject(object, getValidColumnValue_Long(cursor, columns.id, -1));
+                    objects.add(object);
+                }
+
+                if (!isCancelled() && cursor.moveToLast()) {
+                    String[] values = new String[keys.length];
+                    for (int i = 0; i < values.length; i++) {
+                        int index = cursor.getColumnIndex(keys[i]);
+                        values[i] = index < 0 || cursor.isNull(index) ? null : cursor.getString(index);
+                    }
+                    lastValues = values;
+                }
+            }
+
+            sortBuckets();
+            resolveAlbumArts();
+        }
+
+        /**
+         * @return selection of rows sorting after last loaded row, null for first page.
+         * <p>
+         * For sort columns c1..cn it is (c1 after v1) OR (c1 = v1 AND c2 after v2) OR ...,
+         * where null sorts first in ascending and last in descending order like in sqlite.
+         */
+        private String keyset(ArrayList<String> args) {
+
+            if (lastValues == null) return null;
+
+            StringBuilder selection = new StringBuilder();
+
+            for (int i = 0; i < keys.length; i++) {
+
+                String value = lastValues[i];
+
+                //nothing sorts after null in descending order
+                if (value == null && !ascending[i]) continue;
+
+                if (selection.length() > 0) selection.append(" OR ");
+                selection.append('(');
+
+                for (int j = 0; j < i; j++) {
+                    if (lastValues[j] == null) {
+                        selection.append(keys[j]).append(" IS NULL AND ");
+                    } else {
+                        selection.append(keys[j]).append("=? AND ");
+                        args.add(lastValues[j]);
+                    }
+                }
+
+                if (value == null) {
+                    selection.append(keys[i]).append(" IS NOT NULL");
+                } else if (ascending[i]) {
+                    selection.append(keys[i]).append(">?");
+                    args.add(value);
+                } else {
+                    selection.append('(').append(keys[i]).append("<? OR ")
+                            .append(keys[i]).append(" IS NULL)");
+                    args.add(value);
+                }
+
+                selection.append(')');
+            }
+
+            return selection.length() == 0 ? "0" : selection.toString();
+        }
+    }
+
+    /**
+     * Applies media store changes of {@link MediaAction} as they happen, see {@link #watch(long, WatchObserver)}.
+     * Changes are reported through {@link WatchObserver#onChange} only, never to observers of other tasks.
+     * Call methods from main thread.
+     */
+    public class Watcher {
+
+        private final long debounceMillis;
+        private final WatchObserver observer;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final Runnable flush = this::flush;
+        private final LongMap<Boolean> pendingIds = new LongMap<>();
+
+        private boolean pendingAll = true; //first flush brings state up to date
+        private boolean syncing;
+        private boolean stopped;
+        private MediaTask task;
+        private Lifecycle lifecycle;
+        private LifecycleEventObserver lifecycleObserver;
+
+        private final ContentObserver contentObserver = new ContentObserver(handler) {
+
+            @Override
+            public void onChange(boolean selfChange) {
+                onChange(selfChange, (Uri) null);
+            }
+
+            @Override
+            public void onChange(boolean selfChange, Uri uri) {
+                collect(uri);
+                schedule();
+            }
+
+            @Override
+            public void onChange(boolean selfChange, @NonNull Collection<Uri> uris, int flags) {
+                for (Uri uri : uris) collect(uri);
+                schedule();
+            }
+        };
+
+        Watcher(long debounceMillis, WatchObserver observer) {
+            this.debounceMillis = debounceMillis;
+            this.observer = observer;
+        }
+
+        void start() {
+            context.getContentResolver().registerContentObserver(action.getUri(), true, contentObserver);
+            handler.post(flush);
+        }
+
+        /**
+         * Stop watching, a running sync is cancelled and nothing is delivered after.
+         */
+        public void stop() {
+
+            if (stopped) return;
+
+            stopped = true;
+            context.getContentResolver().unregisterContentObserver(contentObserver);
+            handler.removeCallbacks(flush);
+
+            if (task != null) task.cancel();
+
+            if (lifecycle != null) {
+                lifecycle.removeObserver(lifecycleObserver);
+                lifecycle = null;
+                lifecycleObserver = null;
+            }
+        }
+
+        /**
+         * Stop watching when owner is destroyed.
+         *
+         * @return this watcher.
+         */
+        @MainThread
+        public Watcher bindTo(LifecycleOwner owner) {
+
+            if (stopped) return this;
+
+            if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                stop();
+                return this;
+            }
+
+            lifecycle = owner.getLifecycle();
+            lifecycleObserver = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) stop();
+            };
+            lifecycle.addObserver(lifecycleObserver);
+
+            return this;
+        }
+
+        /**
+         * @return true until {@link #stop()} is called.
+         */
+        public boolean isWatching() {
+            return !stopped;
+        }
+
+        /**
+         * Remember changed row, a uri which is not of a single row changes whole collection.
+         */
+        private void collect(Uri uri) {
+
+            if (uri == null) {
+                pendingAll = true;
+                return;
+            }
+
+            try {
+                pendingIds.put(Long.parseLong(uri.getLastPathSegment()), Boolean.TRUE);
+            } catch (NumberFormatException | NullPointerException e) {
+                pendingAll = true;
+            }
+        }
+
+        /**
+         * Apply collected changes after debounce time, restarted by each notification.
+         */
+        private void schedule() {
+            if (stopped) return;
+            handler.removeCallbacks(flush);
+            handler.postDelayed(flush, debounceMillis);
+        }
+
+        private void flush() {
+
+            //changes collected while syncing are flushed once sync is done
+            if (stopped || syncing || (!pendingAll && pendingIds.size() == 0)) return;
+
+            boolean all = pendingAll;
+            long[] ids = pendingIds.keys();
+
+            pendingAll = false;
+            pendingIds.clear();
+            syncing = true;
+
+            MediaTask task = new MediaTask();
+            this.task = task;
+
+            action.getQueue().execute(() -> {
+
+                MediaSnapshot snapshot = null;
+                MediaChanges changes = null;
+
+                synchronized (action.getSyncState()) {
+
+                    SyncState state = action.getSyncState();
+                    MediaSnapshot previous = action.snapshot.get();
+
+                    //only touched ids are compared and only their list operations are published
+                    state.startRecording(previous);
+
+                    boolean completed = run(task, () -> {
+                        if (all || !state.isScanned()) {
+                            synchronize(null); //watcher reports through WatchObserver only
+                        } else {
+                            retrieveIds(state, ids);
+                            removeMissing(ids);
+                        }
+                    });
+
+                    MediaChanges recorded = state.stopRecording();
+                    ChangeSet operations = state.getRecordedChanges(previous);
+
+                    if (completed) {
+                        changes = recorded;
+                        if (!changes.isEmpty()) {
+                            snapshot = publish(operations);
+                            saveIndex(snapshot);
+                        } else if (operations != null) {
+                            state.keepPublished();
+                        }
+                    }
+                }
+
+                MediaSnapshot result = snapshot;
+                MediaChanges diff = changes;
+
+                handler.post(() -> {
+
+                    task.finish();
+                    syncing = false;
+
+                    if (stopped) return;
+
+                    if (result != null) {
+                        action.apply(result, true);
+                        if (observer != null) observer.onChange(result, diff);
+                    }
+
+                    if (diff == null) pendingAll = true; //cancelled, read changes again
+
+                    if (pendingAll || pendingIds.size() > 0) schedule();
+                });
+            });
+        }
+    }
+
+    /**
+     * Inserted, updated and removed media ids of a {@link Watcher} update.
+     */
+    public static final class MediaChanges {
+
+        private final long[] inserted;
+        private final long[] updated;
+        private final long[] removed;
+
+        private MediaChanges(long[] inserted, long[] updated, long[] removed) {
+            this.inserted = inserted;
+            this.updated = updated;
+            this.removed = removed;
+        }
+
+        /**
+         * Changes of given ids only, from their original objects to their objects after.
+         *
+         * @param originals - id and object before change, {@link SyncState#NONE} if id was not saved.
+         */
+        static MediaChanges of(LongMap<MediaObject> originals, LongMap<MediaObject> after) {
+
+            long[] ids = originals.keys();
+            long[] inserted = new long[ids.length];
+            long[] updated = new long[ids.length];
+            long[] removed = new long[ids.length];
+            int insertedCount = 0, updatedCount = 0, removedCount = 0;
+
+            for (long id : ids) {
+                MediaObject old = originals.get(id);
+                MediaObject object = after.get(id);
+                if (old == SyncState.NONE) {
+                    if (object != null) inserted[insertedCount++] = id;
+                } else if (object == null) {
+                    removed[removedCount++] = id;
+                } else if (isModified(old, object)) {
+                    updated[updatedCount++] = id;
+                }
+            }
+
+            return new MediaChanges(Arrays.copyOf(inserted, insertedCount)
+                    , Arrays.copyOf(updated, updatedCount)
+                    , Arrays.copyOf(removed, removedCount));
+        }
+
+        /**
+         * Rows read again without change are not reported as updated.
+         */
+        private static boolean isModified(MediaObject o1, MediaObject o2) {
+            return o1 != o2 && ChangeSet.isChanged(o1, o2);
+        }
+
+        /**
+         * @return ids of new media.
+         */
+        @NonNull
+        public long[] getInserted() {
+            return inserted.clone();
+        }
+
+        /**
+         * @return ids of modified media.
+         */
+        @NonNull
+        public long[] getUpdated() {
+            return updated.clone();
+        }
+
+        /**
+         * @return ids of deleted media, or media which no longer match {@link Query}.
+         */
+        @NonNull
+        public long[] getRemoved() {
+            return removed.clone();
+        }
+
+        /**
+         * @return true if nothing changed.
+         */
+        public boolean isEmpty() {
+            return inserted.length == 0 && updated.length == 0 && removed.length == 0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "MediaChanges{" +
+                    "inserted=" + inserted.length +
+                    ", updated=" + updated.length +
+                    ", removed=" + removed.length +
+                    '}';
+        }
+    }
+
+    /**
+     * Handle of a running media task.
+     * <p>
+     * Cancellation is visible to reading thread at once, aborts running query using
+     * {@link CancellationSignal} and closes cursor.
+     */
+    public static final class MediaTask {
+
+        private final CancellationSignal signal = new CancellationSignal();
+        private final ArrayList<MediaTask> children = new ArrayList<>();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private Lifecycle lifecycle;
+        private LifecycleEventObserver lifecycleObserver;
+
+        MediaTask() {
+        }
+
+        /**
+         * Cancel task, ignored if task is already done.
+         * Observer is notified with cancelled outcome instead of completion.
+         */
+        public void cancel() {
+
+            if (done || cancelled) return;
+
+            cancelled = true;
+            signal.cancel();
+
+            for (MediaTask child : children) {
+                child.cancel();
+            }
+        }
+
+        /**
+         * @return true if task is cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return true if task is completed or cancelled and observer is notified.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Cancel task when lifecycle owner is destroyed, call from main thread.
+         */
+        @MainThread
+        public MediaTask bindTo(LifecycleOwner owner) {
+
+            if (done) return this;
+
+            if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+                cancel();
+                return this;
+            }
+
+            lifecycle = owner.getLifecycle();
+            lifecycleObserver = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) cancel();
+            };
+            lifecycle.addObserver(lifecycleObserver);
+
+            return this;
+        }
+
+        /**
+         * Mark task done and unbind lifecycle, called on main thread.
+         */
+        void finish() {
+
+            done = true;
+
+            if (lifecycle != null) {
+                lifecycle.removeObserver(lifecycleObserver);
+                lifecycle = null;
+                lifecycleObserver = null;
+            }
+        }
+    }
+
+    /**
+     * Delivers streamed objects of {@link Media#stream(int, StreamObserver)} as they are requested.
+     * <p>
+     * Runs as the scan observer, so it receives row progress on background thread and
+     * completion on main thread. Full batches are queued by the scan and delivered on main thread
+     * while there is demand, completion is delivered once all queued batches are delivered.
+     */
+    private final class StreamTask implements Subscription, MediaObserver {
+
+        private final int batchSize;
+        private final StreamObserver observer;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final Object lock = new Object();
+        private final ArrayDeque<List<MediaObject>> ready = new ArrayDeque<>(); //batches waiting for demand
+        private final Runnable drain = this::drain;
+
+        private ArrayList<MediaObject> batch;
+        private long demand;
+        private long lastProgress;
+        private MediaSnapshot snapshot; //set once scan completes
+        private volatile boolean cancelled;
+        private volatile MediaTask task;
+
+        StreamTask(int batchSize, StreamObserver observer) {
+            this.batchSize = batchSize;
+            this.observer = observer;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                throw new IllegalArgumentException("Requested batches should be greater than 0.");
+            }
+
+            synchronized (lock) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+
+            handler.post(drain);
+        }
+
+        @Override
+        public void cancel() {
+
+            cancelled = true;
+
+            if (task != null) task.cancel();
+
+            synchronized (lock) {
+                ready.clear();
+            }
+        }
+
+        /**
+         * Add object to current batch.
+         *
+         * @return true if batch is full and should be pushed.
+         */
+        boolean offer(MediaObject object) {
+            batch.add(object);
+            return batch.size() >= batchSize;
+        }
+
+        /**
+         * Queue current batch for delivery, never waits for demand.
+         */
+        void push() {
+
+            List<MediaObject> objects = Collections.unmodifiableList(batch);
+            batch = new ArrayList<>(batchSize);
+
+            synchronized (lock) {
+                if (cancelled) return;
+                ready.add(objects);
+            }
+
+            handler.post(drain);
+        }
+
+        /**
+         * Queue last incomplete batch.
+         */
+        void flush() {
+            if (!batch.isEmpty()) push();
+        }
+
+        /**
+         * Deliver queued batches while there is demand, then completion once queue is empty.
+         * Called on main thread.
+         */
+        private void drain() {
+
+            while (true) {
+
+                List<MediaObject> objects;
+                MediaSnapshot result = null;
+
+                synchronized (lock) {
+
+                    //task may be cancelled by terminate() as well, which doesn't call cancel()
+                    if (task != null && task.isCancelled()) cancelled = true;
+
+                    if (cancelled) {
+                        ready.clear();
+                        return;
+                    }
+
+                    if (ready.isEmpty()) {
+                        result = snapshot;
+                        snapshot = null;
+                        objects = null;
+                    } else if (demand > 0) {
+                        demand--;
+                        objects = ready.poll();
+                    } else {
+                        return;
+                    }
+                }
+
+                if (objects == null) {
+                    if (result != null && observer != null) observer.onComplete(result);
+                    return;
+                }
+
+                if (observer != null) observer.onNext(objects);
+            }
+        }
+
+        @Override
+        public void onObserving(int position) {
+        }
+
+        @Override
+        public void onProgress(int position, int progress) {
+
+            long now = SystemClock.uptimeMillis();
+
+            if (now - lastProgress < PROGRESS_INTERVAL_MILLIS) return;
+
+            lastProgress = now;
+
+            handler.post(() -> {
+                if (!cancelled && observer != null) observer.onProgress(position, progress);
+            });
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        @Override
+        public void onComplete(MediaSnapshot snapshot) {
+
+            synchronized (lock) {
+                this.snapshot = snapshot;
+            }
+
+            drain();
+        }
+    }
+
+    /**
+     * Subscription of {@link Media#stream(int, StreamObserver)}.
+     */
+    public interface Subscription {
+
+        /**
+         * Request n more batches, can be called from any thread.
+         */
+        void request(long n);
+
+        /**
+         * Stop streaming, no more batches are delivered.
+         */
+        void cancel();
+    }
+
+    /**
+     * Observer of {@link Media#stream(int, StreamObserver)}, called on main thread.
+     */
+    public interface StreamObserver {
+
+        /**
+         * Called once for each requested batch.
+         */
+        void onNext(List<MediaObject> batch);
+
+        /**
+         * Called at most once per 100 milliseconds.
+         */
+        default void onProgress(int position, int progress) {
+        }
+
+        /**
+         * Called once after last batch, not called if cancelled.
+         */
+        void onComplete(MediaSnapshot snapshot);
+    }
+
+    /**
+     * Observer of {@link Media#observe(CombinedObserver, MediaAction...)}.
+     */
+    public interface CombinedObserver {
+
+        /**
+         * Called on background thread of the action, make sure use runOnUiThread to update UI.
+         */
+        void onProgress(MediaAction action, int position, int progress);
+
+        /**
+         * Called on main thread once action is completed.
+         */
+        void onComplete(MediaAction action);
+
+        /**
+         * Called on main thread once all actions are completed.
+         */
+        void onComplete();
+
+        /**
+         * Called on main thread instead of {@link #onComplete()} if task is cancelled.
+         */
+        default void onCancelled() {
+        }
+    }
+
+    /**
+     * Observer of {@link Watcher}, called on main thread.
+     */
+    public interface WatchObserver {
+
+        /**
+         * Called after changes are applied, never with empty changes.
+         *
+         * @param snapshot - snapshot including changes.
+         */
+        void onChange(MediaSnapshot snapshot, MediaChanges changes);
+    }
+
+    /**
+     * Observer of {@link #buckets(BucketObserver)}, called on main thread.
+     */
+    public interface BucketObserver {
+
+        /**
+         * @param buckets - folder summaries sorted by name.
+         */
+        void onComplete(List<MediaBucket> buckets);
+
+        /**
+         * Called instead of {@link #onComplete(List)} if task is cancelled.
+         */
+        default void onCancelled() {
         }
     }
 
     /**
-     * Clear list and map.
+     * Observer of {@link Pager}, called on main thread.
      */
-    private void clear() {
-        action.getMap().clear();
-        action.getList().clear();
-        action.getSelectedList().clear();
+    public interface PageObserver {
+
+        /**
+         * @param page    - page number starting from 0.
+         * @param objects - media objects of the page.
+         */
+        void onPage(int page, ArrayList<MediaObject> objects);
+
+        /**
+         * Called once after last page is loaded.
+         */
+        void onComplete();
     }
 
     /**
@@ -326,6 +2649,26 @@ public class Media {
         void onProgress(int position, int progress);
 
         void onComplete();
+
+        /**
+         * Called on main thread with published result, calls {@link #onComplete()} by default.
+         */
+        default void onComplete(MediaSnapshot snapshot) {
+            onComplete();
+        }
+
+        /**
+         * Called on main thread with result restored from index file before changes are read,
+         * see {@link Media#withIndex(boolean)}.
+         */
+        default void onRestored(MediaSnapshot snapshot) {
+        }
+
+        /**
+         * Called on main thread instead of {@link #onComplete()} if task is cancelled.
+         */
+        default void onCancelled() {
+        }
     }
 
     /**
@@ -333,6 +2676,9 @@ public class Media {
      * <p>
      * Each action containing particular uri address, a list which contains all media objects,
      * a selected list which contains selected media objects and a map which contains folder wise media objects.
+     * <p>
+     * List and map are only updated on main thread once a scan is published,
+     * use {@link #getSnapshot()} to read result from any thread.
      */
     public enum MediaAction {
         Audio(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, audioList, selectedAudioList, audioMap),
@@ -343,12 +2689,47 @@ public class Media {
         private final ArrayList<MediaObject> list;
         private final ArrayList<MediaObject> selectedList;
         private final HashMap<String, ArrayList<MediaObject>> map;
+        private final SyncState syncState = new SyncState();
+        private final SerialExecutor queue = new SerialExecutor();
+        private final AtomicReference<MediaSnapshot> snapshot;
 
         MediaAction(Uri uri, ArrayList<MediaObject> list, ArrayList<MediaObject> selectedList, HashMap<String, ArrayList<MediaObject>> map) {
             this.uri = uri;
             this.list = list;
             this.selectedList = selectedList;
             this.map = map;
+            this.snapshot = new AtomicReference<>(MediaSnapshot.empty(this));
+        }
+
+        /**
+         * @return last published snapshot, never half built and safe to read from any thread.
+         */
+        @NonNull
+        public MediaSnapshot getSnapshot() {
+            return snapshot.get();
+        }
+
+        /**
+         * Copy snapshot into list and map, called on main thread.
+         *
+         * @param keepSelection - false to clear selected list,
+         *                      else only keep selected objects which still exist in snapshot.
+         */
+        void apply(MediaSnapshot snapshot, boolean keepSelection) {
+
+            list.clear();
+            list.addAll(snapshot.getList());
+
+            map.clear();
+            for (String name : snapshot.getBucketNames()) {
+                map.put(name, new ArrayList<>(snapshot.getBucket(name)));
+            }
+
+            if (!keepSelection) {
+                selectedList.clear();
+            } else if (!selectedList.isEmpty()) {
+                selectedList.retainAll(new HashSet<>(list));
+            }
         }
 
         /**
@@ -382,6 +2763,100 @@ public class Media {
         public HashMap<String, ArrayList<MediaObject>> getMap() {
             return map;
         }
+
+        /**
+         * @return state of previous scan, used by {@link Media#sync(MediaObserver)}.
+         */
+        @NonNull
+        SyncState getSyncState() {
+            return syncState;
+        }
+
+        /**
+         * @return queue of tasks reading this action, see {@link SerialExecutor}.
+         */
+        @NonNull
+        Executor getQueue() {
+            return queue;
+        }
+
+        /**
+         * @return minimal columns to summarize folders, see {@link Media#buckets(BucketObserver)}.
+         */
+        @NonNull
+        public String[] getBucketProjection() {
+
+            ArrayList<String> columns = new ArrayList<>();
+            columns.add(MediaColumns.ID);
+            columns.add(MediaColumns.SIZE);
+            columns.add(MediaColumns.DATE_MODIFIED);
+
+            if (this != Audio || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                columns.add(MediaColumns.BUCKET_ID);
+                columns.add(MediaColumns.BUCKET_DISPLAY_NAME);
+            } else {
+                columns.add(MediaColumns.DATA);
+            }
+
+            return columns.toArray(new String[0]);
+        }
+
+        /**
+         * @return columns to query for this action.
+         * <p>
+         * Only columns which are read into {@link MediaObject} and available on running SDK are included.
+         */
+        @NonNull
+        public String[] getProjection() {
+
+            ArrayList<String> columns = new ArrayList<>();
+            columns.add(MediaColumns.ID);
+            columns.add(MediaColumns.DATA);
+            columns.add(MediaColumns.DISPLAY_NAME);
+            columns.add(MediaColumns.MIME_TYPE);
+            columns.add(MediaColumns.SIZE);
+            columns.add(MediaColumns.DATE_MODIFIED);
+
+            boolean isR = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+
+            if (this != Audio || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                columns.add(MediaColumns.BUCKET_ID);
+                columns.add(MediaColumns.BUCKET_DISPLAY_NAME);
+            }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                columns.add(MediaColumns.RELATIVE_PATH);
+            }
+
+            if (this == Audio) {
+                columns.add(MediaColumns.ALBUM);
+                columns.add(MediaColumns.ALBUM_ID);
+                columns.add(MediaColumns.ARTIST);
+                columns.add(MediaColumns.COMPOSER);
+                columns.add(MediaColumns.YEAR);
+                columns.add(MediaColumns.DURATION);
+                if (isR) {
+                    columns.add(MediaColumns.GENRE);
+                    columns.add(MediaColumns.RESOLUTION);
+                }
+            } else if (this == Video) {
+                columns.add(MediaColumns.ALBUM);
+                columns.add(MediaColumns.ARTIST);
+                columns.add(MediaColumns.RESOLUTION);
+                columns.add(MediaColumns.DURATION);
+                if (isR) {
+                    columns.add(MediaColumns.COMPOSER);
+                    columns.add(MediaColumns.GENRE);
+                    columns.add(MediaColumns.YEAR);
+                }
+            }
+
+            if (isR) {
+                columns.add(MediaColumns.GENERATION_MODIFIED);
+            }
+
+            return columns.toArray(new String[0]);
+        }
     }
 
     /**
@@ -399,12 +2874,414 @@ public class Media {
         String DATE_MODIFIED = "date_modified";
         String DURATION = "duration";
         String ALBUM = "album";
+        String ALBUM_ID = "album_id";
         String ARTIST = "artist";
         String COMPOSER = "composer";
         String GENRE = "genre";
         String MIME_TYPE = "mime_type";
         String RESOLUTION = "resolution";
         String YEAR = "year";
+        String GENERATION_MODIFIED = "generation_modified";
+        String RELATIVE_PATH = "relative_path";
+    }
+
+    /**
+     * Column indices of a {@link Cursor}, resolved once per cursor instead of once per row.
+     * <p>
+     * Index is -1 if cursor doesn't have the column.
+     */
+    static final class ColumnIndex {
+
+        final int id;
+        final int bucketId;
+        final int bucketName;
+        final int data;
+        final int name;
+        final int mime;
+        final int size;
+        final int date;
+        final int album;
+        final int albumId;
+        final int artist;
+        final int composer;
+        final int genre;
+        final int year;
+        final int resolution;
+        final int duration;
+        final int generation;
+        final int relativePath;
+
+        ColumnIndex(Cursor cursor) {
+            id = cursor.getColumnIndex(MediaColumns.ID);
+            bucketId = cursor.getColumnIndex(MediaColumns.BUCKET_ID);
+            bucketName = cursor.getColumnIndex(MediaColumns.BUCKET_DISPLAY_NAME);
+            data = cursor.getColumnIndex(MediaColumns.DATA);
+            name = cursor.getColumnIndex(MediaColumns.DISPLAY_NAME);
+            mime = cursor.getColumnIndex(MediaColumns.MIME_TYPE);
+            size = cursor.getColumnIndex(MediaColumns.SIZE);
+            date = cursor.getColumnIndex(MediaColumns.DATE_MODIFIED);
+            album = cursor.getColumnIndex(MediaColumns.ALBUM);
+            albumId = cursor.getColumnIndex(MediaColumns.ALBUM_ID);
+            artist = cursor.getColumnIndex(MediaColumns.ARTIST);
+            composer = cursor.getColumnIndex(MediaColumns.COMPOSER);
+            genre = cursor.getColumnIndex(MediaColumns.GENRE);
+            year = cursor.getColumnIndex(MediaColumns.YEAR);
+            resolution = cursor.getColumnIndex(MediaColumns.RESOLUTION);
+            duration = cursor.getColumnIndex(MediaColumns.DURATION);
+            generation = cursor.getColumnIndex(MediaColumns.GENERATION_MODIFIED);
+            relativePath = cursor.getColumnIndex(MediaColumns.RELATIVE_PATH);
+        }
+    }
+
+    /**
+     * Runs tasks one by one on {@link #executor()}.
+     * <p>
+     * Only the running task of a queue is handed to shared pool, so queued tasks of one action
+     * never hold pool threads waiting for each other and other actions keep running.
+     */
+    static final class SerialExecutor implements Executor {
+
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        @Override
+        public synchronized void execute(@NonNull Runnable runnable) {
+
+            tasks.add(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    next();
+                }
+            });
+
+            if (active == null) next();
+        }
+
+        private synchronized void next() {
+            active = tasks.poll();
+            if (active != null) executor().execute(active);
+        }
+    }
+
+    /**
+     * Order of scanned list, same in media store query and in memory,
+     * so objects read after a scan are placed where a full scan would place them.
+     * <p>
+     * '_id' is always the last key, so no two objects are in same place.
+     */
+    static final class SortOrder implements Comparator<MediaObject> {
+
+        final String[] keys;
+        final boolean[] ascending;
+
+        SortOrder(String[] keys, boolean[] ascending) {
+            this.keys = keys;
+            this.ascending = ascending;
+        }
+
+        /**
+         * @return newest first, by 'date_modified' and '_id'.
+         */
+        static SortOrder newest() {
+            return new SortOrder(new String[]{MediaColumns.DATE_MODIFIED, MediaColumns.ID}, new boolean[]{false, false});
+        }
+
+        /**
+         * @return sort keys of query followed by '_id' descending, {@link #newest()} if query doesn't sort.
+         */
+        static SortOrder of(Query query) {
+
+            if (query == null || query.sortColumns.isEmpty()) return newest();
+
+            int count = query.sortColumns.size();
+            String[] keys = new String[count + 1];
+            boolean[] ascending = new boolean[count + 1];
+
+            for (int i = 0; i < count; i++) {
+                keys[i] = query.sortColumns.get(i);
+                ascending[i] = query.sortAscending.get(i);
+            }
+
+            keys[count] = MediaColumns.ID;
+            return new SortOrder(keys, ascending);
+        }
+
+        /**
+         * @return sort order of media store query.
+         */
+        String toSql() {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(keys[i]).append(ascending[i] ? " ASC" : " DESC");
+            }
+            return builder.toString();
+        }
+
+        /**
+         * @return position to insert object at, so list of this order stays in order.
+         */
+        int search(List<MediaObject> list, MediaObject object) {
+
+            int low = 0, high = list.size();
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(list.get(mid), object) <= 0) low = mid + 1;
+                else high = mid;
+            }
+
+            return low;
+        }
+
+        @Override
+        public int compare(MediaObject o1, MediaObject o2) {
+
+            for (int i = 0; i < keys.length; i++) {
+                int result = compare(keys[i], o1, o2);
+                if (result != 0) return ascending[i] ? result : -result;
+            }
+
+            return 0;
+        }
+
+        private static int compare(String key, MediaObject o1, MediaObject o2) {
+            switch (key) {
+                case MediaColumns.DISPLAY_NAME:
+                    //null sorts first like in sqlite
+                    return o1.name == null ? (o2.name == null ? 0 : -1) : o2.name == null ? 1 : o1.name.compareTo(o2.name);
+                case MediaColumns.DATE_MODIFIED:
+                    return Long.compare(o1.date, o2.date);
+                case MediaColumns.SIZE:
+                    return Long.compare(o1.size, o2.size);
+                case MediaColumns.DURATION:
+                    return Long.compare(o1.duration, o2.duration);
+                default:
+                    return Long.compare(parseId(o1), parseId(o2));
+            }
+        }
+    }
+
+    /**
+     * Objects and high-water marks of previous scan of a {@link MediaAction}.
+     * <p>
+     * List and map are working copies only touched by scan tasks, results are read from {@link MediaSnapshot}.
+     */
+    static final class SyncState {
+
+        final LongMap<MediaObject> objects = new LongMap<>();
+        final LongMap<Integer> positions = new LongMap<>(); //id, index in list
+        final ArrayList<MediaObject> list = new ArrayList<>();
+        final HashMap<String, ArrayList<MediaObject>> map = new HashMap<>();
+        final MediaStats.Accumulator stats = new MediaStats.Accumulator();
+        long generation = -1;
+        long date = -1;
+        long id = -1;
+        boolean scanned;
+        boolean fullScan; //objects are read by a full scan which is not written to index yet
+        Runnable indexWrite; //pending delayed index write
+        String query; //Query.key of scanned objects
+
+        static final MediaObject NONE = new MediaObject(); //original of an id which was not saved
+
+        private long modifications; //structural changes of list
+        private long publishedModifications = -1;
+        private long publishedVersion = -1;
+        private LongMap<MediaObject> originals; //id, object before first change, while recording
+        private ChangeSet.Builder operations; //list operations while recording, null if not known
+        private boolean overflow; //operations are too many or list is cleared while recording
+
+        /**
+         * Remember list as the one of given snapshot.
+         */
+        void published(MediaSnapshot snapshot) {
+            publishedModifications = modifications;
+            publishedVersion = snapshot.getVersion();
+        }
+
+        /**
+         * Start recording changed ids, and list operations if list is still the one of given snapshot.
+         */
+        void startRecording(MediaSnapshot snapshot) {
+            boolean isPublished = publishedModifications == modifications
+                    && publishedVersion == snapshot.getVersion();
+            originals = new LongMap<>();
+            operations = isPublished ? new ChangeSet.Builder() : null;
+            overflow = false;
+        }
+
+        /**
+         * Stop recording.
+         *
+         * @return changes of recorded ids.
+         */
+        MediaChanges stopRecording() {
+            MediaChanges changes = MediaChanges.of(originals, objects);
+            originals = null;
+            return changes;
+        }
+
+        /**
+         * @return recorded list operations from given snapshot, a reload if there were too many of them
+         * or null if list was not the one of snapshot when recording started.
+         */
+        ChangeSet getRecordedChanges(MediaSnapshot snapshot) {
+            if (operations == null) return null;
+            ChangeSet changes = overflow ? ChangeSet.reload(snapshot.getVersion()) : operations.build(snapshot.getVersion());
+            operations = null;
+            return changes;
+        }
+
+        /**
+         * Keep list as the one of last published snapshot after a recording without changes,
+         * ignored if list was cleared as it may be read in another order.
+         */
+        void keepPublished() {
+            if (!overflow) publishedModifications = modifications;
+        }
+
+        /**
+         * @return removed object of id or null, see {@link #touch(long, MediaObject)}.
+         */
+        MediaObject remove(long id) {
+            MediaObject old = objects.remove(id);
+            if (old != null) touch(id, old);
+            return old;
+        }
+
+        /**
+         * Remember object of id before its first change while recording.
+         */
+        void touch(long id, MediaObject old) {
+            if (originals != null && !originals.containsKey(id)) originals.put(id, old == null ? NONE : old);
+        }
+
+        /**
+         * Save object of id into list, an object of same id is replaced in its place
+         * or moved if order is given and its sort key changed.
+         *
+         * @param order - order to keep list in, null to append new objects.
+         * @return replaced object of same id or null.
+         */
+        MediaObject save(MediaObject object, long id, SortOrder order) {
+
+            MediaObject old = objects.put(id, object);
+            Integer position = old == null ? null : positions.get(id);
+
+            touch(id, old);
+
+            if (position == null) {
+                insert(order == null ? list.size() : order.search(list, object), id, object);
+                return null;
+            }
+
+            recordChange(position, old, object);
+            list.set(position, object);
+            if (order != null) reorder(position, order);
+
+            return old;
+        }
+
+        /**
+         * Insert object at position, positions of objects after it are moved forward.
+         */
+        void insert(int position, long id, MediaObject object) {
+
+            recordInsert(position);
+            list.add(position, object);
+            positions.put(id, position);
+
+            for (int i = position + 1; i < list.size(); i++) {
+                positions.put(parseId(list.get(i)), i);
+            }
+        }
+
+        /**
+         * Move object at position to its place in order, if its sort key moved it out of place.
+         */
+        void reorder(int position, SortOrder order) {
+
+            MediaObject object = list.get(position);
+
+            if ((position == 0 || order.compare(list.get(position - 1), object) < 0)
+                    && (position == list.size() - 1 || order.compare(object, list.get(position + 1)) < 0)) return;
+
+            list.remove(position);
+            int target = order.search(list, object);
+            list.add(target, object);
+
+            for (int i = Math.min(position, target); i <= Math.max(position, target); i++) {
+                positions.put(parseId(list.get(i)), i);
+            }
+
+            recordMove(position, target);
+        }
+
+        void recordInsert(int position) {
+            modifications++;
+            if (operations != null && !overflow) overflow = !operations.insert(position, 1);
+        }
+
+        void recordRemove(int position) {
+            modifications++;
+            if (operations != null && !overflow) overflow = !operations.remove(position, 1);
+        }
+
+        void recordMove(int from, int to) {
+            modifications++;
+            if (operations != null && !overflow) overflow = !operations.move(from, to);
+        }
+
+        void recordChange(int position, MediaObject old, MediaObject object) {
+            if (!ChangeSet.isChanged(old, object)) return; //same place and same look as shown object
+            modifications++;
+            if (operations != null && !overflow) overflow = !operations.change(position);
+        }
+
+        /**
+         * Move high-water marks forward.
+         */
+        void track(Cursor cursor, ColumnIndex columns, MediaObject object) {
+
+            date = Math.max(date, object.date);
+
+            if (columns.id >= 0 && !cursor.isNull(columns.id)) {
+                id = Math.max(id, cursor.getLong(columns.id));
+            }
+
+            if (columns.generation >= 0 && !cursor.isNull(columns.generation)) {
+                generation = Math.max(generation, cursor.getLong(columns.generation));
+            }
+        }
+
+        /**
+         * @return true if a full scan completed since last clear.
+         */
+        boolean isScanned() {
+            return scanned;
+        }
+
+        void clear() {
+
+            if (originals != null) {
+                for (long key : objects.keys()) touch(key, objects.get(key));
+                overflow = true;
+            }
+
+            modifications++;
+            objects.clear();
+            positions.clear();
+            list.clear();
+            map.clear();
+            stats.clear();
+            generation = -1;
+            date = -1;
+            id = -1;
+            scanned = false;
+            fullScan = false;
+            indexWrite = null;
+        }
     }
 
     /**
@@ -457,4 +3334,43 @@ public class Media {
                     '}';
         }
     }
+
+    /**
+     * Folder summary of {@link #buckets(BucketObserver)}.
+     */
+    public static class MediaBucket implements Serializable {
+
+        public String id;
+        public String name;
+        public int count;
+        public long size;
+        public long date;
+        public long coverId = -1;
+
+        private final String collection;
+
+        MediaBucket(Uri collection) {
+            this.collection = collection.toString();
+        }
+
+        /**
+         * @return content uri of newest media object of folder.
+         */
+        public Uri getCoverUri() {
+            return ContentUris.withAppendedId(Uri.parse(collection), coverId);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "MediaBucket{" +
+                    "id='" + id + '\'' +
+                    ", name='" + name + '\'' +
+                    ", count=" + count +
+                    ", size=" + size +
+                    ", date=" + date +
+                    ", coverId=" + coverId +
+                    '}';
+        }
+    }
 }
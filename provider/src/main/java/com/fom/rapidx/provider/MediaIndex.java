@@ -0,0 +1,269 @@
+package com.fom.rapidx.provider;
+
+import android.content.Context;
+import android.os.Build;
+
+import com.fom.rapidx.provider.Media.MediaAction;
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 18th Oct 2026.
+ * A binary file of last scan result of a {@link MediaAction}, stored in app cache.
+ * <p>
+ * File layout:
+ * <pre>
+ * header  : magic(int) version(int) action(int) count(int)
+ *           generation(long) date(long) id(long) payload length(long) payload crc32(long)
+ * payload : media store version(string) then count objects of
+ *           id(long) size(long) date(long) duration(long) and 12 strings
+ * string  : byte length(int, -1 for null) and utf-8 bytes
+ * </pre>
+ * File is read with memory mapped I/O and any mismatch in header or checksum is treated as no index.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+final class MediaIndex {
+
+    private static final int MAGIC = 0x52504458; //RPDX
+    private static final int VERSION = 3; //2: objects are newest first, 3: audio folder id is parent path before Q
+    private static final int HEADER_SIZE = 4 * 4 + 8 * 5;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Restored index content.
+     */
+    static final class Entry {
+        long generation;
+        long date;
+        long id;
+        long[] ids;
+        MediaObject[] objects;
+    }
+
+    private MediaIndex() {
+    }
+
+    /**
+     * @return index file of action.
+     */
+    static File getFile(Context context, MediaAction action) {
+        return new File(context.getCacheDir(), "rapidx_media_" + action.name().toLowerCase(Locale.ROOT) + ".idx");
+    }
+
+    /**
+     * @return version of media store, an index of other version is never restored.
+     */
+    static String getStoreVersion(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            String version = android.provider.MediaStore.getVersion(context);
+            return version != null ? version : "";
+        }
+        return "";
+    }
+
+    /**
+     * Write objects into a temporary file and move it over index file,
+     * so a crash while writing never leaves a half written index.
+     *
+     * @param ids - media id of each object.
+     */
+    static void write(File file, MediaAction action, String storeVersion,
+                      long generation, long date, long id,
+                      long[] ids, List<MediaObject> objects) throws IOException {
+
+        File temp = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        long length;
+
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+
+            FileChannel channel = fos.getChannel();
+            channel.position(HEADER_SIZE);
+
+            CheckedOutputStream checked = new CheckedOutputStream(fos, crc);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 64 * 1024));
+
+            writeString(out, storeVersion);
+
+            for (int i = 0; i < objects.size(); i++) {
+                MediaObject object = objects.get(i);
+                out.writeLong(ids[i]);
+                out.writeLong(object.size);
+                out.writeLong(object.date);
+                out.writeLong(object.duration);
+                writeString(out, object.bucketId);
+                writeString(out, object.bucketName);
+                writeString(out, object.name);
+                writeString(out, object.uri);
+                writeString(out, object.mime);
+                writeString(out, object.album);
+                writeString(out, object.art);
+                writeString(out, object.artist);
+                writeString(out, object.composer);
+                writeString(out, object.genre);
+                writeString(out, object.year);
+                writeString(out, object.resolution);
+            }
+
+            out.flush();
+            length = channel.position() - HEADER_SIZE;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(action.ordinal())
+                    .putInt(objects.size())
+                    .putLong(generation)
+                    .putLong(date)
+                    .putLong(id)
+                    .putLong(length)
+                    .putLong(crc.getValue());
+            header.flip();
+
+            channel.position(0);
+            while (header.hasRemaining()) channel.write(header);
+
+            fos.getFD().sync();
+        }
+
+        if (!temp.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw new IOException("Failed to move index file.");
+        }
+    }
+
+    /**
+     * @return index content or null if index is missing, corrupted or of another action or media store version.
+     */
+    static Entry read(File file, MediaAction action, String storeVersion) {
+
+        if (!file.exists() || file.length() < HEADER_SIZE) return null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION
+                    || buffer.getInt() != action.ordinal()) return null;
+
+            int count = buffer.getInt();
+            Entry entry = new Entry();
+            entry.generation = buffer.getLong();
+            entry.date = buffer.getLong();
+            entry.id = buffer.getLong();
+            long length = buffer.getLong();
+            long checksum = buffer.getLong();
+
+            if (count < 0 || length != channel.size() - HEADER_SIZE) return null;
+
+            if (checksum(buffer, HEADER_SIZE, (int) length) != checksum) return null;
+
+            buffer.position(HEADER_SIZE);
+
+            if (!storeVersion.equals(readString(buffer))) return null;
+
+            entry.ids = new long[count];
+            entry.objects = new MediaObject[count];
+
+            for (int i = 0; i < count; i++) {
+                MediaObject object = new MediaObject();
+                entry.ids[i] = buffer.getLong();
+                object.id = String.valueOf(entry.ids[i]);
+                object.size = buffer.getLong();
+                object.date = buffer.getLong();
+                object.duration = buffer.getLong();
+                object.bucketId = readString(buffer);
+                object.bucketName = readString(buffer);
+                object.name = readString(buffer);
+                object.uri = readString(buffer);
+                object.mime = readString(buffer);
+                object.album = readString(buffer);
+                object.art = readString(buffer);
+                object.artist = readString(buffer);
+                object.composer = readString(buffer);
+                object.genre = readString(buffer);
+                object.year = readString(buffer);
+                object.resolution = readString(buffer);
+                entry.objects[i] = object;
+            }
+
+            return entry;
+
+        } catch (IOException | RuntimeException e) {
+            //unreadable or corrupted index, caller falls back to full scan
+            return null;
+        }
+    }
+
+    /**
+     * Delete index file of action.
+     */
+    static void delete(File file) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * @return crc32 of buffer range.
+     */
+    private static long checksum(ByteBuffer buffer, int offset, int length) {
+
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset);
+        payload.limit(offset + length);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            crc.update(payload);
+        } else {
+            byte[] chunk = new byte[64 * 1024];
+            while (payload.hasRemaining()) {
+                int n = Math.min(chunk.length, payload.remaining());
+                payload.get(chunk, 0, n);
+                crc.update(chunk, 0, n);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+
+        int length = buffer.getInt();
+
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,349 @@
+package com.fom.rapidx.provider;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.media.MediaScannerConnection;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 18th Oct 2026.
+ * A queue to add files to media store and remove them from it.
+ * <p>
+ * Paths registered within a short window are coalesced and handed to
+ * {@link MediaScannerConnection#scanFile} in batches, instead of one scan broadcast per file.
+ * Removals are resolved by a single delete on {@link MediaStore.Files} collection per chunk of paths.
+ * Each call returns a {@link Completion} which completes once media store is updated.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class MediaRegistrar {
+
+    private static final long COALESCE_MILLIS = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_QUERY_ARGS = 500;
+    private static final int POOL_KEEP_ALIVE_SECONDS = 30;
+
+    private static MediaRegistrar instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final LinkedHashMap<String, List<Request>> pending = new LinkedHashMap<>(); //path, waiting requests
+    private final Runnable flush = this::flush;
+    private ThreadPoolExecutor executor;
+
+    private MediaRegistrar(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @return registrar shared by whole app.
+     */
+    public static synchronized MediaRegistrar getInstance(Context context) {
+
+        if (context == null) {
+            throw new NullPointerException("Context should not be null. to fix pass a context to 'getInstance()' method.");
+        }
+
+        if (instance == null) instance = new MediaRegistrar(context.getApplicationContext());
+
+        return instance;
+    }
+
+    /**
+     * Add file to media store, see {@link #register(Collection)}.
+     */
+    public Completion<Map<String, Uri>> register(String path) {
+        return register(Collections.singletonList(path));
+    }
+
+    /**
+     * Add files to media store, or update their entries if files are changed.
+     *
+     * @param paths - absolute file paths.
+     * @return completion with media store uri of each path, null for paths which could not be scanned.
+     */
+    public Completion<Map<String, Uri>> register(Collection<String> paths) {
+
+        Completion<Map<String, Uri>> completion = new Completion<>();
+
+        if (paths.isEmpty()) {
+            completion.complete(new HashMap<>());
+            return completion;
+        }
+
+        Request request = new Request(paths.size(), completion);
+        boolean full;
+
+        synchronized (pending) {
+
+            for (String path : paths) {
+                List<Request> requests = pending.get(path);
+                if (requests == null) pending.put(path, requests = new ArrayList<>(1));
+                if (requests.contains(request)) request.done(path, null); //same path given twice
+                else requests.add(request);
+            }
+
+            full = pending.size() >= MAX_BATCH_SIZE;
+        }
+
+        handler.removeCallbacks(flush);
+
+        if (full) flush();
+        else handler.postDelayed(flush, COALESCE_MILLIS);
+
+        return completion;
+    }
+
+    /**
+     * Remove entry of file from media store, see {@link #unregister(Collection)}.
+     */
+    public Completion<Integer> unregister(String path) {
+        return unregister(Collections.singletonList(path));
+    }
+
+    /**
+     * Remove entries of files from media store, files themselves are not touched.
+     * Paths still waiting to be registered are dropped from queue.
+     *
+     * @param paths - absolute file paths.
+     * @return completion with number of removed entries.
+     */
+    public Completion<Integer> unregister(Collection<String> paths) {
+
+        Completion<Integer> completion = new Completion<>();
+        ArrayList<String> copy = new ArrayList<>(paths);
+
+        synchronized (pending) {
+            for (String path : copy) {
+                List<Request> requests = pending.remove(path);
+                if (requests == null) continue;
+                for (Request request : requests) request.done(path, null);
+            }
+        }
+
+        executor().execute(() -> completion.complete(delete(copy)));
+
+        return completion;
+    }
+
+    /**
+     * Remove entries of files from media store on calling thread, cached uris of files are invalidated.
+     *
+     * @return number of removed entries.
+     */
+    int delete(List<String> paths) {
+
+        UriCache.getInstance().invalidate(paths);
+
+        ContentResolver resolver = context.getContentResolver();
+        Uri files = MediaStore.Files.getContentUri("external");
+        int count = 0;
+
+        for (int from = 0; from < paths.size(); from += MAX_QUERY_ARGS) {
+
+            int to = Math.min(paths.size(), from + MAX_QUERY_ARGS);
+            StringBuilder selection = new StringBuilder(MediaStore.MediaColumns.DATA).append(" IN (");
+            for (int i = from; i < to; i++) selection.append(i == from ? "?" : ",?");
+            selection.append(')');
+
+            try {
+                count += resolver.delete(files, selection.toString(), paths.subList(from, to).toArray(new String[0]));
+            } catch (SecurityException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Hand queued paths to media scanner, in batches of {@link #MAX_BATCH_SIZE}.
+     */
+    private void flush() {
+
+        while (true) {
+
+            HashMap<String, List<Request>> batch = new HashMap<>();
+
+            synchronized (pending) {
+                Iterator<Map.Entry<String, List<Request>>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                    Map.Entry<String, List<Request>> entry = iterator.next();
+                    batch.put(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+            }
+
+            if (batch.isEmpty()) return;
+
+            String[] paths = batch.keySet().toArray(new String[0]);
+            String[] mimes = new String[paths.length];
+            Files.Utils utils = new Files.Utils();
+            for (int i = 0; i < paths.length; i++) mimes[i] = utils.getFileMimeType(paths[i]);
+
+            MediaScannerConnection.scanFile(context, paths, mimes, (path, uri) -> {
+
+                List<Request> requests;
+
+                synchronized (batch) {
+                    requests = batch.remove(path);
+                }
+
+                if (requests == null) return;
+
+                for (Request request : requests) request.done(path, uri);
+            });
+        }
+    }
+
+    /**
+     * @return executor of removals, single thread so removals apply in order.
+     */
+    private synchronized ExecutorService executor() {
+
+        if (executor == null) {
+
+            executor = new ThreadPoolExecutor(1, 1
+                    , POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS
+                    , new LinkedBlockingQueue<>()
+                    , runnable -> new Thread(runnable, "RapidX-MediaStore"));
+
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    /**
+     * Paths of a {@link #register(Collection)} call which are not scanned yet.
+     */
+    private static final class Request {
+
+        private final HashMap<String, Uri> uris = new HashMap<>();
+        private final Completion<Map<String, Uri>> completion;
+        private int remaining;
+
+        Request(int remaining, Completion<Map<String, Uri>> completion) {
+            this.remaining = remaining;
+            this.completion = completion;
+        }
+
+        void done(String path, Uri uri) {
+
+            boolean complete;
+
+            synchronized (this) {
+                if (uri != null || !uris.containsKey(path)) uris.put(path, uri);
+                complete = --remaining == 0;
+            }
+
+            if (complete) completion.complete(uris);
+        }
+    }
+
+    /**
+     * Result of a {@link MediaRegistrar} call, completed once media store is updated.
+     * It can not be cancelled, media store work is already queued.
+     */
+    public static final class Completion<T> implements Future<T> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final ArrayList<CompletionCallback<T>> callbacks = new ArrayList<>(1);
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private volatile T result;
+
+        Completion() {
+        }
+
+        void complete(T result) {
+
+            ArrayList<CompletionCallback<T>> waiting;
+
+            synchronized (callbacks) {
+                if (latch.getCount() == 0) return;
+                this.result = result;
+                latch.countDown();
+                waiting = new ArrayList<>(callbacks);
+                callbacks.clear();
+            }
+
+            for (CompletionCallback<T> callback : waiting) handler.post(() -> callback.onComplete(result));
+        }
+
+        /**
+         * Call callback on main thread once completed, right away if already completed.
+         */
+        public Completion<T> whenComplete(@NonNull CompletionCallback<T> callback) {
+
+            synchronized (callbacks) {
+                if (latch.getCount() != 0) {
+                    callbacks.add(callback);
+                    return this;
+                }
+            }
+
+            T value = result;
+            handler.post(() -> callback.onComplete(value));
+            return this;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return latch.getCount() == 0;
+        }
+
+        /**
+         * Wait until completed, don't call it on main thread.
+         */
+        @Override
+        public T get() throws InterruptedException {
+            latch.await();
+            return result;
+        }
+
+        @Override
+        public T get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, TimeoutException {
+            if (!latch.await(timeout, unit)) throw new TimeoutException();
+            return result;
+        }
+    }
+
+    /**
+     * Listener of {@link Completion}, called on main thread.
+     */
+    public interface CompletionCallback<T> {
+        void onComplete(T result);
+    }
+}
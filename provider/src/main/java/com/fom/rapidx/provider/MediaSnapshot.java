@@ -0,0 +1,233 @@
+package com.fom.rapidx.provider;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.fom.rapidx.provider.Media.MediaAction;
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 18th Oct 2026.
+ * An immutable result of a {@link Media} scan.
+ * <p>
+ * Snapshot is built completely on background thread and then published at once,
+ * so it can be read from any thread without lock or copy.
+ * Media objects are stored in arrays and folders are ranges of a single array sorted by folder.
+ * Changes from previous snapshot are computed while building, see {@link #getChanges()}.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class MediaSnapshot {
+
+    private static final AtomicLong versions = new AtomicLong();
+
+    private final MediaAction action;
+    private final long version;
+    private final MediaObject[] objects;
+    private final MediaObject[] bucketObjects;
+    private final String[] bucketNames;
+    private final HashMap<String, int[]> buckets; //folder name, {from, to} of bucketObjects
+    private final MediaTable table;
+    private final ChangeSet changes;
+    private final MediaStats stats;
+
+    /**
+     * @param list - all media objects.
+     * @param map  - folder wise media objects.
+     */
+    MediaSnapshot(MediaAction action, List<MediaObject> list, Map<String, ? extends List<MediaObject>> map) {
+        this(action, list, map, null, MediaStats.empty(), null);
+    }
+
+    /**
+     * @param list  - all media objects.
+     * @param map   - folder wise media objects.
+     * @param table    - column wise media objects, if scanned with {@link Media#columnar(boolean)}.
+     * @param stats    - totals of media objects.
+     * @param previous - snapshot replaced by this one to compute {@link #getChanges()}, null if none.
+     */
+    MediaSnapshot(MediaAction action, List<MediaObject> list, Map<String, ? extends List<MediaObject>> map
+            , MediaTable table, MediaStats stats, MediaSnapshot previous) {
+        this(action, list, map, table, stats, previous, null);
+    }
+
+    /**
+     * @param changes - changes from previous snapshot if already known, null to compute them.
+     */
+    MediaSnapshot(MediaAction action, List<MediaObject> list, Map<String, ? extends List<MediaObject>> map
+            , MediaTable table, MediaStats stats, MediaSnapshot previous, ChangeSet changes) {
+
+        this.action = action;
+        this.table = table;
+        this.stats = stats;
+        this.version = versions.incrementAndGet();
+        this.objects = list.toArray(new MediaObject[0]);
+        this.changes = changes != null
+                ? changes
+                : previous == null
+                ? ChangeSet.reload(0)
+                : ChangeSet.between(previous.version, previous.objects, objects);
+
+        int count = 0;
+        for (List<MediaObject> bucket : map.values()) count += bucket.size();
+
+        this.bucketNames = map.keySet().toArray(new String[0]);
+        this.bucketObjects = new MediaObject[count];
+        this.buckets = new HashMap<>(bucketNames.length * 2);
+
+        Arrays.sort(bucketNames);
+
+        int from = 0;
+        for (String name : bucketNames) {
+            List<MediaObject> bucket = map.get(name);
+            for (int i = 0; i < bucket.size(); i++) {
+                bucketObjects[from + i] = bucket.get(i);
+            }
+            buckets.put(name, new int[]{from, from + bucket.size()});
+            from += bucket.size();
+        }
+    }
+
+    /**
+     * @return snapshot without any object.
+     */
+    static MediaSnapshot empty(MediaAction action) {
+        return new MediaSnapshot(action, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    /**
+     * @return action of this snapshot.
+     */
+    @NonNull
+    public MediaAction getAction() {
+        return action;
+    }
+
+    /**
+     * @return increasing version, a newer snapshot always has a greater version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return number of media objects.
+     */
+    public int size() {
+        return objects.length;
+    }
+
+    /**
+     * @return media object at position.
+     */
+    @NonNull
+    public MediaObject get(int position) {
+        return objects[position];
+    }
+
+    /**
+     * @return read-only list of all media objects.
+     */
+    @NonNull
+    public List<MediaObject> getList() {
+        return new ArrayView(objects, 0, objects.length);
+    }
+
+    /**
+     * @return column wise media objects or null if not scanned with {@link Media#columnar(boolean)}.
+     * List and folders are empty in that case.
+     */
+    @Nullable
+    public MediaTable getTable() {
+        return table;
+    }
+
+    /**
+     * @return positional changes of {@link #getList()} from previous snapshot of same action,
+     * whose version is {@link ChangeSet#getFromVersion()}.
+     */
+    @NonNull
+    public ChangeSet getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return storage totals of media objects, also available in {@link Media#columnar(boolean)} mode.
+     */
+    @NonNull
+    public MediaStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return folder names sorted by name.
+     */
+    @NonNull
+    public List<String> getBucketNames() {
+        return Collections.unmodifiableList(Arrays.asList(bucketNames));
+    }
+
+    /**
+     * @return read-only list of media objects of folder sorted by name, empty if folder not exist.
+     */
+    @NonNull
+    public List<MediaObject> getBucket(String name) {
+        int[] range = buckets.get(name);
+        return range == null
+                ? Collections.emptyList()
+                : new ArrayView(bucketObjects, range[0], range[1]);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MediaSnapshot{" +
+                "action=" + action +
+                ", version=" + version +
+                ", size=" + objects.length +
+                ", buckets=" + bucketNames.length +
+                ", table=" + table +
+                ", changes=" + changes +
+                ", stats=" + stats +
+                '}';
+    }
+
+    /**
+     * Read-only list view of an array range.
+     */
+    private static final class ArrayView extends AbstractList<MediaObject> implements RandomAccess {
+
+        private final MediaObject[] array;
+        private final int from;
+        private final int to;
+
+        ArrayView(MediaObject[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public MediaObject get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return array[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
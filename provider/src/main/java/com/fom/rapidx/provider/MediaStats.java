@@ -0,0 +1,372 @@
+package com.fom.rapidx.provider;
+
+import androidx.annotation.NonNull;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 18th Oct 2026.
+ * Storage totals of a {@link MediaSnapshot}: per folder and mime type totals, largest files and
+ * a monthly histogram of modification dates.
+ * <p>
+ * Totals are accumulated while media objects are saved and removed during scan,
+ * so they are never computed by walking media lists again.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class MediaStats {
+
+    /**
+     * Number of largest files kept.
+     */
+    public static final int LARGEST_COUNT = 20;
+
+    private final long count;
+    private final long size;
+    private final Totals buckets;
+    private final Totals mimes;
+    private final int[] months; //yyyymm, ascending
+    private final long[] monthCounts;
+    private final long[] monthSizes;
+    private final MediaObject[] largest;
+
+    private MediaStats(Accumulator accumulator) {
+
+        count = accumulator.count;
+        size = accumulator.size;
+        buckets = new Totals(accumulator.buckets);
+        mimes = new Totals(accumulator.mimes);
+
+        long[] keys = accumulator.months.keys();
+        Arrays.sort(keys);
+        months = new int[keys.length];
+        monthCounts = new long[keys.length];
+        monthSizes = new long[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            long[] totals = accumulator.months.get(keys[i]);
+            months[i] = (int) keys[i];
+            monthCounts[i] = totals[0];
+            monthSizes[i] = totals[1];
+        }
+
+        largest = Arrays.copyOf(accumulator.largest, accumulator.largestCount);
+    }
+
+    /**
+     * @return stats without any media.
+     */
+    static MediaStats empty() {
+        return new Accumulator().build(Collections.emptyList());
+    }
+
+    /**
+     * @return number of media objects.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return total size of media objects in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return folder names sorted by name.
+     */
+    @NonNull
+    public List<String> getBuckets() {
+        return buckets.getKeys();
+    }
+
+    public long getBucketCount(String bucketName) {
+        return buckets.getCount(bucketName);
+    }
+
+    public long getBucketSize(String bucketName) {
+        return buckets.getSize(bucketName);
+    }
+
+    /**
+     * @return mime types sorted by name.
+     */
+    @NonNull
+    public List<String> getMimeTypes() {
+        return mimes.getKeys();
+    }
+
+    public long getMimeCount(String mime) {
+        return mimes.getCount(mime);
+    }
+
+    public long getMimeSize(String mime) {
+        return mimes.getSize(mime);
+    }
+
+    /**
+     * @return months having media as yyyymm, like 202610, ascending.
+     * Month of a media is month of its modification date in default time zone.
+     */
+    @NonNull
+    public int[] getMonths() {
+        return months.clone();
+    }
+
+    public long getMonthCount(int month) {
+        int index = Arrays.binarySearch(months, month);
+        return index < 0 ? 0 : monthCounts[index];
+    }
+
+    public long getMonthSize(int month) {
+        int index = Arrays.binarySearch(months, month);
+        return index < 0 ? 0 : monthSizes[index];
+    }
+
+    /**
+     * @return up to {@link #LARGEST_COUNT} largest media objects, largest first.
+     */
+    @NonNull
+    public List<MediaObject> getLargest() {
+        return Collections.unmodifiableList(Arrays.asList(largest));
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MediaStats{" +
+                "count=" + count +
+                ", size=" + size +
+                ", buckets=" + buckets.keys.length +
+                ", mimes=" + mimes.keys.length +
+                ", months=" + months.length +
+                '}';
+    }
+
+    /**
+     * Count and size per key, sorted by key.
+     */
+    private static final class Totals {
+
+        private final String[] keys;
+        private final long[] counts;
+        private final long[] sizes;
+
+        Totals(HashMap<String, long[]> map) {
+
+            keys = map.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            counts = new long[keys.length];
+            sizes = new long[keys.length];
+
+            for (int i = 0; i < keys.length; i++) {
+                long[] totals = map.get(keys[i]);
+                counts[i] = totals[0];
+                sizes[i] = totals[1];
+            }
+        }
+
+        List<String> getKeys() {
+            return Collections.unmodifiableList(Arrays.asList(keys));
+        }
+
+        long getCount(String key) {
+            int index = key == null ? -1 : Arrays.binarySearch(keys, key);
+            return index < 0 ? 0 : counts[index];
+        }
+
+        long getSize(String key) {
+            int index = key == null ? -1 : Arrays.binarySearch(keys, key);
+            return index < 0 ? 0 : sizes[index];
+        }
+    }
+
+    /**
+     * Running totals of sync state, updated for each saved and removed media object.
+     * Not thread safe.
+     */
+    static final class Accumulator {
+
+        private final HashMap<String, long[]> buckets = new HashMap<>(); //count, size
+        private final HashMap<String, long[]> mimes = new HashMap<>();
+        private final LongMap<long[]> months = new LongMap<>();
+        private final MediaObject[] largest = new MediaObject[LARGEST_COUNT]; //largest first
+        private int largestCount;
+        private boolean largestStale; //a largest object is removed, smaller ones may be missing
+        private TimeZone zone = TimeZone.getDefault();
+        private long count;
+        private long size;
+
+        /**
+         * Add object to totals.
+         *
+         * @param reused - true if object is reused for next rows, it is copied if kept as largest.
+         */
+        void add(MediaObject object, boolean reused) {
+
+            count++;
+            size += object.size;
+
+            add(buckets, object.bucketName, 1, object.size);
+            add(mimes, object.mime, 1, object.size);
+            add(months, month(object.date), 1, object.size);
+
+            if (largestCount < LARGEST_COUNT || object.size > largest[largestCount - 1].size) {
+                insertLargest(reused ? copy(object) : object);
+            }
+        }
+
+        /**
+         * Remove object from totals.
+         */
+        void remove(MediaObject object) {
+
+            count--;
+            size -= object.size;
+
+            add(buckets, object.bucketName, -1, -object.size);
+            add(mimes, object.mime, -1, -object.size);
+            add(months, month(object.date), -1, -object.size);
+
+            for (int i = 0; i < largestCount; i++) {
+                if (largest[i] == object) {
+                    System.arraycopy(largest, i + 1, largest, i, largestCount - i - 1);
+                    largest[--largestCount] = null;
+                    largestStale = true;
+                    break;
+                }
+            }
+        }
+
+        /**
+         * @param objects - all objects of sync state, walked only if a largest object was removed.
+         */
+        MediaStats build(List<MediaObject> objects) {
+
+            if (largestStale) {
+                Arrays.fill(largest, null);
+                largestCount = 0;
+                for (int i = 0; i < objects.size(); i++) {
+                    MediaObject object = objects.get(i);
+                    if (largestCount < LARGEST_COUNT || object.size > largest[largestCount - 1].size) {
+                        insertLargest(object);
+                    }
+                }
+                largestStale = false;
+            }
+
+            return new MediaStats(this);
+        }
+
+        void clear() {
+            buckets.clear();
+            mimes.clear();
+            months.clear();
+            Arrays.fill(largest, null);
+            largestCount = 0;
+            largestStale = false;
+            zone = TimeZone.getDefault();
+            count = 0;
+            size = 0;
+        }
+
+        private void insertLargest(MediaObject object) {
+
+            int i = Math.min(largestCount, LARGEST_COUNT - 1);
+
+            while (i > 0 && largest[i - 1].size < object.size) {
+                largest[i] = largest[i - 1];
+                i--;
+            }
+
+            largest[i] = object;
+            if (largestCount < LARGEST_COUNT) largestCount++;
+        }
+
+        private static void add(HashMap<String, long[]> map, String key, int count, long size) {
+
+            if (key == null) key = "";
+
+            long[] totals = map.get(key);
+
+            if (totals == null) map.put(key, totals = new long[2]);
+
+            totals[0] += count;
+            totals[1] += size;
+
+            if (totals[0] <= 0) map.remove(key);
+        }
+
+        private static void add(LongMap<long[]> map, long key, int count, long size) {
+
+            long[] totals = map.get(key);
+
+            if (totals == null) map.put(key, totals = new long[2]);
+
+            totals[0] += count;
+            totals[1] += size;
+
+            if (totals[0] <= 0) map.remove(key);
+        }
+
+        /**
+         * @param seconds - seconds since epoch.
+         * @return month as yyyymm in time zone, without allocating a calendar.
+         */
+        private long month(long seconds) {
+
+            long millis = seconds * 1000;
+            long days = floorDiv(millis + zone.getOffset(millis), 86_400_000L);
+
+            //civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html
+            long z = days + 719_468;
+            long era = floorDiv(z, 146_097);
+            long doe = z - era * 146_097;
+            long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+            long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            long mp = (5 * doy + 2) / 153;
+            long month = mp < 10 ? mp + 3 : mp - 9;
+            long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+            return year * 100 + month;
+        }
+
+        /**
+         * Math.floorDiv is not available before N.
+         */
+        private static long floorDiv(long x, long y) {
+            long q = x / y;
+            return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+        }
+
+        private static MediaObject copy(MediaObject object) {
+            MediaObject copy = new MediaObject();
+            copy.bucketId = object.bucketId;
+            copy.bucketName = object.bucketName;
+            copy.id = object.id;
+            copy.name = object.name;
+            copy.uri = object.uri;
+            copy.mime = object.mime;
+            copy.album = object.album;
+            copy.art = object.art;
+            copy.artist = object.artist;
+            copy.composer = object.composer;
+            copy.genre = object.genre;
+            copy.year = object.year;
+            copy.resolution = object.resolution;
+            copy.size = object.size;
+            copy.date = object.date;
+            copy.duration = object.duration;
+            return copy;
+        }
+    }
+}
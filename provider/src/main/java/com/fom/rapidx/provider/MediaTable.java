@@ -0,0 +1,295 @@
+package com.fom.rapidx.provider;
+
+import androidx.annotation.NonNull;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 18th Oct 2026.
+ * A compact column wise store of media objects.
+ * <p>
+ * Numbers are kept in parallel primitive arrays and repeating texts like folder, mime, album,
+ * artist or genre are dictionary encoded, so a large library is held in a few arrays instead of
+ * one {@link MediaObject} and its strings per row. Rows are read through a reusable
+ * {@link MediaObject} using {@link #get(int, MediaObject)}.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class MediaTable {
+
+    private final int size;
+
+    private final long[] ids;
+    private final long[] sizes;
+    private final long[] dates;
+    private final long[] durations;
+    private final long[] albumIds;
+
+    private final String[] names;
+    private final String[] paths;
+
+    private final int[] bucketIds;
+    private final int[] buckets;
+    private final int[] mimes;
+    private final int[] albums;
+    private final int[] arts;
+    private final int[] artists;
+    private final int[] composers;
+    private final int[] genres;
+    private final int[] years;
+    private final int[] resolutions;
+
+    private final String[] dictionary;
+
+    private MediaTable(Builder builder) {
+        size = builder.size;
+        ids = Arrays.copyOf(builder.ids, size);
+        sizes = Arrays.copyOf(builder.sizes, size);
+        dates = Arrays.copyOf(builder.dates, size);
+        durations = Arrays.copyOf(builder.durations, size);
+        albumIds = Arrays.copyOf(builder.albumIds, size);
+        names = Arrays.copyOf(builder.names, size);
+        paths = Arrays.copyOf(builder.paths, size);
+        bucketIds = Arrays.copyOf(builder.bucketIds, size);
+        buckets = Arrays.copyOf(builder.buckets, size);
+        mimes = Arrays.copyOf(builder.mimes, size);
+        albums = Arrays.copyOf(builder.albums, size);
+        arts = Arrays.copyOf(builder.arts, size);
+        artists = Arrays.copyOf(builder.artists, size);
+        composers = Arrays.copyOf(builder.composers, size);
+        genres = Arrays.copyOf(builder.genres, size);
+        years = Arrays.copyOf(builder.years, size);
+        resolutions = Arrays.copyOf(builder.resolutions, size);
+        dictionary = Arrays.copyOf(builder.dictionary, builder.dictionarySize);
+    }
+
+    /**
+     * @return number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public long getSize(int row) {
+        return sizes[row];
+    }
+
+    public long getDate(int row) {
+        return dates[row];
+    }
+
+    public long getDuration(int row) {
+        return durations[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getPath(int row) {
+        return paths[row];
+    }
+
+    public String getBucketName(int row) {
+        return dictionary[buckets[row]];
+    }
+
+    public String getMime(int row) {
+        return dictionary[mimes[row]];
+    }
+
+    /**
+     * @return dictionary code of folder name, rows of same folder have same code.
+     */
+    public int getBucketCode(int row) {
+        return buckets[row];
+    }
+
+    /**
+     * @return dictionary code of mime type, rows of same mime type have same code.
+     */
+    public int getMimeCode(int row) {
+        return mimes[row];
+    }
+
+    /**
+     * @return text of a dictionary code.
+     */
+    public String decode(int code) {
+        return dictionary[code];
+    }
+
+    /**
+     * @return new media object of row.
+     */
+    @NonNull
+    public MediaObject get(int row) {
+        return get(row, new MediaObject());
+    }
+
+    /**
+     * Fill given object with row data, so a single object can be reused while iterating rows.
+     *
+     * @return given object.
+     */
+    @NonNull
+    public MediaObject get(int row, @NonNull MediaObject object) {
+        object.id = String.valueOf(ids[row]);
+        object.bucketId = dictionary[bucketIds[row]];
+        object.bucketName = dictionary[buckets[row]];
+        object.uri = paths[row];
+        object.name = names[row];
+        object.mime = dictionary[mimes[row]];
+        object.album = dictionary[albums[row]];
+        object.art = dictionary[arts[row]];
+        object.artist = dictionary[artists[row]];
+        object.composer = dictionary[composers[row]];
+        object.genre = dictionary[genres[row]];
+        object.year = dictionary[years[row]];
+        object.resolution = dictionary[resolutions[row]];
+        object.size = sizes[row];
+        object.date = dates[row];
+        object.duration = durations[row];
+        object.selected = false;
+        return object;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "MediaTable{" +
+                "size=" + size +
+                ", dictionary=" + dictionary.length +
+                '}';
+    }
+
+    /**
+     * Builder of {@link MediaTable}, appends rows while reading cursor.
+     */
+    static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private long[] sizes;
+        private long[] dates;
+        private long[] durations;
+        private long[] albumIds;
+        private String[] names;
+        private String[] paths;
+        private int[] bucketIds;
+        private int[] buckets;
+        private int[] mimes;
+        private int[] albums;
+        private int[] arts;
+        private int[] artists;
+        private int[] composers;
+        private int[] genres;
+        private int[] years;
+        private int[] resolutions;
+
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private String[] dictionary = new String[16];
+        private int dictionarySize;
+
+        /**
+         * @param capacity - expected number of rows.
+         */
+        Builder(int capacity) {
+            allocate(Math.max(capacity, 16));
+            dictionarySize = 1; //code 0 is always null
+        }
+
+        /**
+         * Append object as new row.
+         *
+         * @param id      - media id of object.
+         * @param albumId - album id of object or -1.
+         */
+        void add(MediaObject object, long id, long albumId) {
+
+            if (size == ids.length) allocate(size * 2);
+
+            ids[size] = id;
+            sizes[size] = object.size;
+            dates[size] = object.date;
+            durations[size] = object.duration;
+            albumIds[size] = albumId;
+            names[size] = object.name;
+            paths[size] = object.uri;
+            bucketIds[size] = encode(object.bucketId);
+            buckets[size] = encode(object.bucketName);
+            mimes[size] = encode(object.mime);
+            albums[size] = encode(object.album);
+            arts[size] = encode(object.art);
+            artists[size] = encode(object.artist);
+            composers[size] = encode(object.composer);
+            genres[size] = encode(object.genre);
+            years[size] = encode(object.year);
+            resolutions[size] = encode(object.resolution);
+
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getAlbumId(int row) {
+            return albumIds[row];
+        }
+
+        void setArt(int row, String art) {
+            arts[row] = encode(art);
+        }
+
+        MediaTable build() {
+            return new MediaTable(this);
+        }
+
+        private int encode(String value) {
+
+            if (value == null) return 0;
+
+            Integer code = codes.get(value);
+
+            if (code == null) {
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+                }
+                code = dictionarySize++;
+                dictionary[code] = value;
+                codes.put(value, code);
+            }
+
+            return code;
+        }
+
+        private void allocate(int capacity) {
+            ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+            sizes = sizes == null ? new long[capacity] : Arrays.copyOf(sizes, capacity);
+            dates = dates == null ? new long[capacity] : Arrays.copyOf(dates, capacity);
+            durations = durations == null ? new long[capacity] : Arrays.copyOf(durations, capacity);
+            albumIds = albumIds == null ? new long[capacity] : Arrays.copyOf(albumIds, capacity);
+            names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+            paths = paths == null ? new String[capacity] : Arrays.copyOf(paths, capacity);
+            bucketIds = bucketIds == null ? new int[capacity] : Arrays.copyOf(bucketIds, capacity);
+            buckets = buckets == null ? new int[capacity] : Arrays.copyOf(buckets, capacity);
+            mimes = mimes == null ? new int[capacity] : Arrays.copyOf(mimes, capacity);
+            albums = albums == null ? new int[capacity] : Arrays.copyOf(albums, capacity);
+            arts = arts == null ? new int[capacity] : Arrays.copyOf(arts, capacity);
+            artists = artists == null ? new int[capacity] : Arrays.copyOf(artists, capacity);
+            composers = composers == null ? new int[capacity] : Arrays.copyOf(composers, capacity);
+            genres = genres == null ? new int[capacity] : Arrays.copyOf(genres, capacity);
+            years = years == null ? new int[capacity] : Arrays.copyOf(years, capacity);
+            resolutions = resolutions == null ? new int[capacity] : Arrays.copyOf(resolutions, capacity);
+        }
+    }
+}
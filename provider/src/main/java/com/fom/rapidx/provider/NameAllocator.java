@@ -0,0 +1,153 @@
+package com.fom.rapidx.provider;
+
+import android.util.LruCache;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * 18th Oct 2026.
+ * Allocates unique file names like 'name(1).ext' without listing directory on every call.
+ * <p>
+ * A directory is listed once to find highest '(n)' suffix of each name, later allocations continue
+ * from that counter and confirm a candidate with a single file check instead of searching all files.
+ * A name is only taken once its file exists, so allocating again before creating it gives the same name.
+ * Callers creating files concurrently should create them with {@link File#createNewFile()} and
+ * allocate again if it fails. Cached counters of a directory are dropped using {@link #invalidate(String)}
+ * once files are deleted or moved out of it, so freed names are used again.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+final class NameAllocator {
+
+    private static final LruCache<String, Directory> directories = new LruCache<>(32);
+
+    private NameAllocator() {
+    }
+
+    /**
+     * @return given path if no file exists at it, else same path with a free '(n)' suffix
+     * higher than suffixes already used for that name.
+     */
+    static String allocate(String path) {
+
+        File file = new File(path);
+
+        if (file.getParent() == null) file = file.getAbsoluteFile(); //bare name, in working directory
+
+        String parent = file.getParent();
+        String name = file.getName();
+        Directory directory = directory(parent);
+
+        synchronized (directory) {
+            String free = directory.next(parent, name);
+            return free.equals(name) ? path : new File(parent, free).getPath();
+        }
+    }
+
+    /**
+     * Drop cached counters of directory of path, call after a file is deleted or moved out of it.
+     */
+    static void invalidate(String path) {
+        String parent = path == null ? null : new File(path).getParent();
+        if (parent != null) directories.remove(parent);
+    }
+
+    /**
+     * Drop cached counters of directories of paths, see {@link #invalidate(String)}.
+     */
+    static void invalidate(Collection<String> paths) {
+        for (String path : paths) invalidate(path);
+    }
+
+    /**
+     * @return cached or newly listed directory.
+     */
+    private static Directory directory(String path) {
+
+        Directory directory = directories.get(path);
+
+        if (directory == null) {
+
+            Directory listed = new Directory(new File(path).list());
+
+            synchronized (directories) {
+                //another thread may have listed it meanwhile, keep the one already in use
+                directory = directories.get(path);
+                if (directory == null) {
+                    directory = listed;
+                    directories.put(path, directory);
+                }
+            }
+        }
+
+        return directory;
+    }
+
+    /**
+     * Suffix counters of a directory.
+     */
+    static final class Directory {
+
+        final HashMap<String, Integer> counters = new HashMap<>(); //original name, first suffix to check
+
+        /**
+         * @param names - names in directory, null if directory is not listable.
+         */
+        Directory(String[] names) {
+
+            if (names == null) return;
+
+            for (String name : names) {
+
+                int dot = name.lastIndexOf('.');
+                int end = dot > 0 ? dot : name.length();
+
+                if (end < 3 || name.charAt(end - 1) != ')') continue;
+
+                int open = name.lastIndexOf('(', end - 2);
+                if (open <= 0 || open == end - 2) continue;
+
+                int suffix = 0;
+                boolean digits = true;
+                for (int i = open + 1; i < end - 1 && digits; i++) {
+                    char c = name.charAt(i);
+                    digits = c >= '0' && c <= '9' && suffix < 100_000_000;
+                    suffix = suffix * 10 + (c - '0');
+                }
+                if (!digits) continue;
+
+                String original = name.substring(0, open) + name.substring(end);
+                Integer next = counters.get(original);
+                if (next == null || next <= suffix) counters.put(original, suffix + 1);
+            }
+        }
+
+        /**
+         * @return name if no file of it exists in parent, else name with first free '(n)' suffix
+         * from its counter on. Counter stays at returned suffix, so it is checked again next time.
+         */
+        String next(String parent, String name) {
+
+            if (!new File(parent, name).exists()) return name;
+
+            int dot = name.lastIndexOf('.');
+            String base = dot > 0 ? name.substring(0, dot) : name;
+            String extension = dot > 0 ? name.substring(dot) : "";
+
+            Integer next = counters.get(name);
+            int suffix = next != null ? next : 1;
+            String candidate = base + "(" + suffix + ")" + extension;
+
+            while (new File(parent, candidate).exists()) {
+                candidate = base + "(" + ++suffix + ")" + extension;
+            }
+
+            counters.put(name, suffix);
+
+            return candidate;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.fom.rapidx.provider;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.provider.MediaStore;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 18th Oct 2026.
+ * A bounded cache of media store uri and file path pairs, looked up in both directions.
+ * <p>
+ * Least recently used pairs are evicted first. Pairs are invalidated when {@link Files.Editor}
+ * or {@link FileBatch} changes a file and when media store notifies a change of its entry,
+ * so a cached pair never outlives the media store row it came from. Only media store uris are cached,
+ * other providers are not watched.
+ * <p>
+ * Media store is watched through application context from first cached pair on,
+ * until {@link #release()} is called or process ends.
+ *
+ * @author <a ref="https://github.com/fiftyonemoon/">hardkgosai</a>.
+ * @since 1.0
+ */
+public final class UriCache {
+
+    private static final int MAX_SIZE = 512;
+
+    private static final UriCache instance = new UriCache();
+
+    private final LinkedHashMap<String, Uri> uris = new LinkedHashMap<String, Uri>(16, 0.75f, true) { //path, uri
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Uri> eldest) {
+            if (size() <= MAX_SIZE) return false;
+            paths.remove(eldest.getValue());
+            return true;
+        }
+    };
+    private final HashMap<Uri, String> paths = new HashMap<>(); //uri, path
+    private ContentResolver resolver;
+    private ContentObserver observer;
+    private long hits;
+    private long misses;
+
+    private UriCache() {
+    }
+
+    /**
+     * @return cache shared by whole app.
+     */
+    static UriCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return cached uri of path, null if not cached.
+     */
+    synchronized Uri getUri(String path) {
+        Uri uri = path == null ? null : uris.get(path);
+        if (uri != null) hits++;
+        else misses++;
+        return uri;
+    }
+
+    /**
+     * @return cached path of uri, null if not cached.
+     */
+    synchronized String getPath(Uri uri) {
+        String path = uri == null ? null : paths.get(uri);
+        if (path != null) {
+            hits++;
+            uris.get(path); //mark pair as recently used
+        } else misses++;
+        return path;
+    }
+
+    /**
+     * Cache pair, any other pair of same path or uri is replaced.
+     * Uris of other providers are not cached, their changes are never notified.
+     * Media store is watched from first pair on, to invalidate changed entries.
+     */
+    synchronized void put(Context context, String path, Uri uri) {
+
+        if (path == null || uri == null || !MediaStore.AUTHORITY.equals(uri.getAuthority())) return;
+
+        String oldPath = paths.remove(uri);
+        if (oldPath != null) uris.remove(oldPath);
+
+        Uri oldUri = uris.put(path, uri);
+        if (oldUri != null) paths.remove(oldUri);
+
+        paths.put(uri, path);
+
+        if (observer != null) return;
+
+        observer = new ContentObserver(null) {
+
+            @Override
+            public void onChange(boolean selfChange) {
+                onChange(selfChange, null);
+            }
+
+            @Override
+            public void onChange(boolean selfChange, Uri uri) {
+                invalidate(uri);
+            }
+        };
+
+        resolver = context.getApplicationContext().getContentResolver();
+        resolver.registerContentObserver(MediaStore.Files.getContentUri("external"), true, observer);
+        resolver.registerContentObserver(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, true, observer);
+        resolver.registerContentObserver(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, true, observer);
+        resolver.registerContentObserver(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, true, observer);
+    }
+
+    /**
+     * Stop watching media store and remove all pairs, counters are kept.
+     * Cache watches again from next cached pair on.
+     */
+    public synchronized void release() {
+
+        if (observer != null) {
+            resolver.unregisterContentObserver(observer);
+            observer = null;
+            resolver = null;
+        }
+
+        clear();
+    }
+
+    /**
+     * Remove pair of path.
+     */
+    public synchronized void invalidate(String path) {
+        Uri uri = path == null ? null : uris.remove(path);
+        if (uri != null) paths.remove(uri);
+    }
+
+    /**
+     * Remove pairs of paths.
+     */
+    public synchronized void invalidate(Collection<String> files) {
+        for (String path : files) invalidate(path);
+    }
+
+    /**
+     * Remove pairs of a changed media store uri,
+     * all pairs if uri is null or it doesn't point to a single entry.
+     */
+    synchronized void invalidate(Uri changed) {
+
+        long id = changed == null ? -1 : parseId(changed);
+
+        if (id == -1) {
+            clear();
+            return;
+        }
+
+        //same entry has an uri in each collection, match any of them by id
+        Iterator<Map.Entry<Uri, String>> iterator = paths.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Uri, String> entry = iterator.next();
+            if (changed.getAuthority() != null
+                    && changed.getAuthority().equals(entry.getKey().getAuthority())
+                    && parseId(entry.getKey()) == id) {
+                uris.remove(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all pairs, counters are kept.
+     */
+    public synchronized void clear() {
+        uris.clear();
+        paths.clear();
+    }
+
+    /**
+     * @return number of cached pairs.
+     */
+    public synchronized int getSize() {
+        return uris.size();
+    }
+
+    /**
+     * @return number of lookups answered from cache.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups which needed a media store query.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return id of uri's last segment, -1 if it is not an id.
+     */
+    private static long parseId(Uri uri) {
+        String segment = uri.getLastPathSegment();
+        if (segment == null || segment.isEmpty() || segment.length() > 18) return -1;
+        long id = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "UriCache{" +
+                "size=" + uris.size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.fom.rapidx.provider;
+
+import java.util.Locale;
+
+/**
+ * Timing helper of local benchmarks.
+ * <p>
+ * Benchmarks run with unit tests at small sizes, they check that both compared paths give
+ * same result and only print their timings, so they never fail on a slow machine.
+ * Full sizes run with gradle property '-Prapidx.benchmark=full'.
+ */
+final class Benchmarks {
+
+    private static final int WARM_UP_RUNS = 2;
+
+    static volatile Object sink; //keeps results of timed jobs alive
+
+    private Benchmarks() {
+    }
+
+    /**
+     * @return true if benchmarks should run at full sizes.
+     */
+    static boolean isFull() {
+        return "full".equals(System.getProperty("rapidx.benchmark"));
+    }
+
+    /**
+     * @return quick size, or full size if {@link #isFull()}.
+     */
+    static int size(int quick, int full) {
+        return isFull() ? full : quick;
+    }
+
+    /**
+     * Run job a few times after warm up and print its best time.
+     *
+     * @return best time in nanoseconds.
+     */
+    static long time(String name, int runs, Job job) throws Exception {
+
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < WARM_UP_RUNS + runs; i++) {
+            long start = System.nanoTime();
+            sink = job.run();
+            long time = System.nanoTime() - start;
+            if (i >= WARM_UP_RUNS) best = Math.min(best, time);
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%s: %.2f ms", name, best / 1e6));
+        return best;
+    }
+
+    /**
+     * Print how many times faster new time is than old time.
+     */
+    static void speedUp(long before, long after) {
+        System.out.println(String.format(Locale.ROOT, "speed-up: %.1fx", before / (double) Math.max(1, after)));
+    }
+
+    interface Job {
+        Object run() throws Exception;
+    }
+}
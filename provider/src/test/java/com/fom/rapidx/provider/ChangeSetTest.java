@@ -0,0 +1,209 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link ChangeSet}, operations applied to old list must give new list.
+ */
+public class ChangeSetTest {
+
+    @Test
+    public void between_emptyLists() {
+        ChangeSet changes = ChangeSet.between(1, objects(), objects());
+        assertFalse(changes.isReload());
+        assertTrue(changes.isEmpty());
+        assertEquals(1, changes.getFromVersion());
+    }
+
+    @Test
+    public void between_insertedIntoEmptyList() {
+        assertApplies(objects(), objects(1, 2, 3));
+    }
+
+    @Test
+    public void between_allRemoved() {
+        MediaObject[] oldList = objects(1, 2, 3, 4);
+        ChangeSet changes = ChangeSet.between(1, oldList, objects());
+        assertEquals(1, changes.getOperationCount());
+        assertApplies(oldList, objects());
+    }
+
+    @Test
+    public void between_reorderOnly() {
+        assertApplies(objects(1, 2, 3, 4, 5), objects(5, 1, 3, 2, 4));
+        assertApplies(objects(1, 2, 3, 4, 5), objects(5, 4, 3, 2, 1));
+    }
+
+    @Test
+    public void between_changedObjects() {
+
+        MediaObject[] oldList = objects(1, 2, 3);
+        MediaObject[] newList = objects(1, 2, 3);
+        newList[1].date = 99;
+
+        ChangeSet changes = ChangeSet.between(1, oldList, newList);
+        List<String> applied = apply(changes, oldList);
+
+        assertEquals(1, changes.getOperationCount());
+        assertEquals(Arrays.asList("1", "*", "3"), applied);
+    }
+
+    @Test
+    public void between_renamedObjects() {
+
+        MediaObject[] oldList = objects(1, 2, 3);
+        MediaObject[] newList = objects(1, 2, 3);
+        newList[0].name = "renamed.jpg";
+        newList[2].bucketName = "Moved";
+
+        ChangeSet changes = ChangeSet.between(1, oldList, newList);
+
+        assertEquals(Arrays.asList("*", "2", "*"), apply(changes, oldList));
+    }
+
+    @Test
+    public void between_mixedChanges() {
+        assertApplies(objects(1, 2, 3, 4, 5, 6), objects(7, 2, 1, 8, 5, 9));
+    }
+
+    @Test
+    public void between_randomLists() {
+
+        Random random = new Random(7);
+
+        for (int round = 0; round < 200; round++) {
+
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 40; i++) ids.add(i);
+
+            Collections.shuffle(ids, random);
+            MediaObject[] oldList = objects(ids.subList(0, random.nextInt(30)));
+
+            Collections.shuffle(ids, random);
+            MediaObject[] newList = objects(ids.subList(0, random.nextInt(30)));
+
+            assertApplies(oldList, newList);
+        }
+    }
+
+    @Test
+    public void between_tooManyOperationsIsReload() {
+
+        int[] oldIds = new int[2002];
+        int[] newIds = new int[1001];
+        for (int i = 0; i < oldIds.length; i++) oldIds[i] = i;
+        for (int i = 0; i < newIds.length; i++) newIds[i] = i * 2; //every other object removed, one operation each
+
+        ChangeSet changes = ChangeSet.between(1, objects(oldIds), objects(newIds));
+
+        assertTrue(changes.isReload());
+        assertFalse(changes.isEmpty());
+        assertEquals(0, changes.getOperationCount());
+
+        //one run less is still within limit
+        changes = ChangeSet.between(1, objects(Arrays.copyOf(oldIds, 2000)), objects(Arrays.copyOf(newIds, 1000)));
+        assertFalse(changes.isReload());
+        assertEquals(1000, changes.getOperationCount());
+    }
+
+    @Test
+    public void inserted_appendsRange() {
+
+        MediaObject[] oldList = objects(1, 2);
+        ChangeSet changes = ChangeSet.inserted(1, 2, 3);
+
+        assertEquals(1, changes.getOperationCount());
+        assertEquals(Arrays.asList("1", "2", "*", "*", "*"), apply(changes, oldList));
+        assertTrue(ChangeSet.inserted(1, 2, 0).isEmpty());
+    }
+
+    @Test
+    public void builder_mergesAdjacentRanges() {
+
+        ChangeSet.Builder builder = new ChangeSet.Builder();
+        builder.insert(2, 1);
+        builder.insert(3, 1);
+        builder.remove(5, 1);
+        builder.remove(4, 1);
+        builder.change(0);
+        builder.change(1);
+
+        assertEquals(3, builder.build(1).getOperationCount());
+    }
+
+    /**
+     * Assert that operations turn old list into new list, inserted and changed objects
+     * are taken from new list at their final positions.
+     */
+    private static void assertApplies(MediaObject[] oldList, MediaObject[] newList) {
+
+        ChangeSet changes = ChangeSet.between(1, oldList, newList);
+        assertFalse(changes.isReload());
+
+        List<String> applied = apply(changes, oldList);
+        assertEquals(newList.length, applied.size());
+
+        for (int i = 0; i < newList.length; i++) {
+            if (!applied.get(i).equals("*")) assertEquals(newList[i].id, applied.get(i));
+        }
+    }
+
+    /**
+     * @return ids of old list after operations, '*' for inserted or changed positions.
+     */
+    private static List<String> apply(ChangeSet changes, MediaObject[] oldList) {
+
+        ArrayList<String> list = new ArrayList<>();
+        for (MediaObject object : oldList) list.add(object.id);
+
+        changes.dispatchTo(new ChangeSet.Callback() {
+
+            @Override
+            public void onInserted(int position, int count) {
+                for (int i = 0; i < count; i++) list.add(position, "*");
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                for (int i = 0; i < count; i++) list.remove(position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                list.add(toPosition, list.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                for (int i = 0; i < count; i++) list.set(position + i, "*");
+            }
+        });
+
+        return list;
+    }
+
+    private static MediaObject[] objects(List<Integer> ids) {
+        int[] values = new int[ids.size()];
+        for (int i = 0; i < values.length; i++) values[i] = ids.get(i);
+        return objects(values);
+    }
+
+    private static MediaObject[] objects(int... ids) {
+        MediaObject[] objects = new MediaObject[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            objects[i] = new MediaObject();
+            objects[i].id = String.valueOf(ids[i]);
+        }
+        return objects;
+    }
+}
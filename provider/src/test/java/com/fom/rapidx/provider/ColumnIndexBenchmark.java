@@ -0,0 +1,157 @@
+package com.fom.rapidx.provider;
+
+import android.database.Cursor;
+
+import com.fom.rapidx.provider.Media.MediaAction;
+import com.fom.rapidx.provider.Media.MediaColumns;
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of scan rows read through {@link Media.ColumnIndex} from a projected cursor,
+ * against column lookups per field from a cursor of all columns like before.
+ */
+public class ColumnIndexBenchmark {
+
+    //columns of images table, as returned for a null projection
+    private static final String[] ALL_COLUMNS = {
+            "_id", "_data", "_size", "_display_name", "mime_type", "title", "date_added", "date_modified",
+            "description", "picasa_id", "isprivate", "latitude", "longitude", "datetaken", "orientation",
+            "mini_thumb_magic", "bucket_id", "bucket_display_name", "width", "height", "is_pending",
+            "is_trashed", "is_favorite", "date_expires", "owner_package_name", "volume_name", "relative_path",
+            "document_id", "instance_id", "original_document_id", "duration", "generation_added",
+            "generation_modified", "xmp", "is_download", "is_drm", "_hash", "primary_directory",
+            "secondary_directory", "_transcode_status", "_video_codec_type", "_modifier"};
+
+    @Test
+    public void readRows() throws Exception {
+
+        int rows = Benchmarks.size(2_000, 40_000);
+        String[] projection = MediaAction.Images.getProjection();
+        Media media = new Media().action(MediaAction.Images);
+
+        List<MediaObject> before = read(cursor(ALL_COLUMNS, rows), null);
+        List<MediaObject> after = read(cursor(projection, rows), media);
+
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < rows; i++) assertEquals(before.get(i).toString(), after.get(i).toString());
+
+        long legacy = Benchmarks.time("lookup per field, " + rows + " rows", 5
+                , () -> read(cursor(ALL_COLUMNS, rows), null));
+        long indexed = Benchmarks.time("column index, " + rows + " rows", 5
+                , () -> read(cursor(projection, rows), media));
+
+        Benchmarks.speedUp(legacy, indexed);
+    }
+
+    /**
+     * @param media - media to read rows with, null to read them like before.
+     */
+    private static List<MediaObject> read(Cursor cursor, Media media) {
+
+        ArrayList<MediaObject> objects = new ArrayList<>(cursor.getCount());
+        Media.ColumnIndex columns = media == null ? null : new Media.ColumnIndex(cursor);
+
+        while (cursor.moveToNext()) {
+            objects.add(media == null ? readLegacy(cursor) : media.readObject(cursor, columns));
+        }
+
+        return objects;
+    }
+
+    /**
+     * Previous scan, which resolved index of each column for each row.
+     */
+    private static MediaObject readLegacy(Cursor cursor) {
+        MediaObject object = new MediaObject();
+        object.id = string(cursor, MediaColumns.ID);
+        object.bucketId = string(cursor, MediaColumns.BUCKET_ID);
+        object.bucketName = string(cursor, MediaColumns.BUCKET_DISPLAY_NAME);
+        object.uri = string(cursor, MediaColumns.DATA);
+        object.name = string(cursor, MediaColumns.DISPLAY_NAME);
+        object.mime = string(cursor, MediaColumns.MIME_TYPE);
+        object.size = number(cursor, MediaColumns.SIZE);
+        object.date = number(cursor, MediaColumns.DATE_MODIFIED);
+        return object;
+    }
+
+    private static String string(Cursor cursor, String column) {
+        int index = cursor.getColumnIndex(column);
+        return index >= 0 && !cursor.isNull(index) ? cursor.getString(index) : "";
+    }
+
+    private static long number(Cursor cursor, String column) {
+        int index = cursor.getColumnIndex(column);
+        return index >= 0 && !cursor.isNull(index) ? cursor.getLong(index) : 0;
+    }
+
+    /**
+     * @return cursor of given columns and synthetic image rows, columns are looked up like 'AbstractCursor'.
+     */
+    private static Cursor cursor(String[] names, int rows) {
+
+        List<String> columns = Arrays.asList(names);
+        int[] position = {-1};
+
+        return (Cursor) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class}
+                , (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCount":
+                            return rows;
+                        case "getPosition":
+                            return position[0];
+                        case "moveToNext":
+                            return ++position[0] < rows;
+                        case "getColumnIndex":
+                            String name = (String) args[0];
+                            for (int i = 0; i < names.length; i++) {
+                                if (names[i].equalsIgnoreCase(name)) return i;
+                            }
+                            return -1;
+                        case "isNull":
+                            return value(columns.get((Integer) args[0]), position[0]) == null;
+                        case "getString":
+                            Object value = value(columns.get((Integer) args[0]), position[0]);
+                            return value == null ? null : value.toString();
+                        case "getLong":
+                            Object number = value(columns.get((Integer) args[0]), position[0]);
+                            return number instanceof Long ? (Long) number : 0L;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Object value(String column, int row) {
+        switch (column) {
+            case MediaColumns.ID:
+                return (long) row + 1;
+            case MediaColumns.DATA:
+                return "/storage/emulated/0/DCIM/Camera/IMG_" + row + ".jpg";
+            case MediaColumns.DISPLAY_NAME:
+                return "IMG_" + row + ".jpg";
+            case MediaColumns.MIME_TYPE:
+                return "image/jpeg";
+            case MediaColumns.SIZE:
+                return 1_000_000L + row;
+            case MediaColumns.DATE_MODIFIED:
+                return 1_700_000_000L + row;
+            case MediaColumns.BUCKET_ID:
+                return "-1739773001";
+            case MediaColumns.BUCKET_DISPLAY_NAME:
+                return "Camera";
+            default:
+                return null;
+        }
+    }
+}
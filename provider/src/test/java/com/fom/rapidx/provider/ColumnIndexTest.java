@@ -0,0 +1,56 @@
+package com.fom.rapidx.provider;
+
+import android.database.Cursor;
+
+import com.fom.rapidx.provider.Media.MediaColumns;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link Media.ColumnIndex}.
+ */
+public class ColumnIndexTest {
+
+    @Test
+    public void columnIndex_resolvesQueriedColumns() {
+
+        Media.ColumnIndex columns = new Media.ColumnIndex(cursor(
+                MediaColumns.ID, MediaColumns.DATA, MediaColumns.DISPLAY_NAME, MediaColumns.SIZE));
+
+        assertEquals(0, columns.id);
+        assertEquals(1, columns.data);
+        assertEquals(2, columns.name);
+        assertEquals(3, columns.size);
+    }
+
+    @Test
+    public void columnIndex_marksMissingColumns() {
+
+        Media.ColumnIndex columns = new Media.ColumnIndex(cursor(MediaColumns.ID));
+
+        assertEquals(-1, columns.album);
+        assertEquals(-1, columns.duration);
+        assertEquals(-1, columns.generation);
+        assertEquals(-1, columns.relativePath);
+    }
+
+    /**
+     * @return cursor which only answers column indices of given columns.
+     */
+    private static Cursor cursor(String... names) {
+
+        List<String> columns = Arrays.asList(names);
+
+        return (Cursor) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class}
+                , (proxy, method, args) -> {
+                    if (method.getName().equals("getColumnIndex")) return columns.indexOf((String) args[0]);
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,83 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of {@link FileNames} against parsing through {@link File} and substrings like before.
+ * <p>
+ * Previous name lookup also checked that file exists, that check is left out here,
+ * so both paths give same result for synthetic paths and only parsing is compared.
+ */
+public class FileNamesBenchmark {
+
+    private static final String[] EXTENSIONS = {"jpg", "JPG", "png", "mp4", "mp3", "pdf", "txt", "apk"};
+
+    @Test
+    public void parsePaths() throws Exception {
+
+        String[] paths = paths(Benchmarks.size(100_000, 1_000_000));
+        HashMap<String, String> mimeTypes = new HashMap<>(); //stands in for MimeTypeMap
+        for (String extension : EXTENSIONS) mimeTypes.put(extension, FileNames.mimeType("a." + extension));
+
+        for (String path : paths) {
+            assertEquals(legacyName(path), FileNames.name(path));
+            assertEquals(legacyNameWithoutExtension(path), FileNames.nameWithoutExtension(path));
+            assertEquals(legacyExtension(path), FileNames.extension(path));
+            assertEquals(legacyMimeType(path, mimeTypes), FileNames.mimeType(path));
+        }
+
+        long legacy = Benchmarks.time("file and substrings, " + paths.length + " paths", 5, () -> {
+            int sum = 0;
+            for (String path : paths) {
+                sum += legacyName(path).length() + legacyNameWithoutExtension(path).length()
+                        + legacyExtension(path).length() + legacyMimeType(path, mimeTypes).length();
+            }
+            return sum;
+        });
+
+        long parsed = Benchmarks.time("file names, " + paths.length + " paths", 5, () -> {
+            int sum = 0;
+            for (String path : paths) {
+                sum += FileNames.name(path).length() + FileNames.nameWithoutExtension(path).length()
+                        + FileNames.extension(path).length() + FileNames.mimeType(path).length();
+            }
+            return sum;
+        });
+
+        Benchmarks.speedUp(legacy, parsed);
+    }
+
+    private static String legacyName(String path) {
+        return new File(path).getName();
+    }
+
+    private static String legacyNameWithoutExtension(String path) {
+        String name = legacyName(path);
+        int index = name.lastIndexOf(".");
+        return index <= 0 ? name : name.substring(0, index);
+    }
+
+    private static String legacyExtension(String path) {
+        String name = legacyName(path);
+        int index = name.lastIndexOf(".");
+        return index <= 0 ? "" : name.substring(index);
+    }
+
+    private static String legacyMimeType(String path, HashMap<String, String> mimeTypes) {
+        return mimeTypes.get(legacyExtension(path).replace(".", ""));
+    }
+
+    private static String[] paths(int size) {
+        String[] paths = new String[size];
+        for (int i = 0; i < size; i++) {
+            paths[i] = "/storage/emulated/0/DCIM/Folder " + i % 50 + "/IMG_" + i + ".v" + i % 3
+                    + "." + EXTENSIONS[i % EXTENSIONS.length];
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,76 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link FileNames}, only extensions of its table are looked up
+ * as {@link android.webkit.MimeTypeMap} is not available here.
+ */
+public class FileNamesTest {
+
+    private final Files.Utils utils = new Files.Utils();
+
+    @Test
+    public void name_isLastSegment() {
+        assertEquals("a.mp4", FileNames.name("/storage/emulated/0/DCIM/a.mp4"));
+        assertEquals("a.mp4", FileNames.name("a.mp4"));
+        assertEquals("", FileNames.name("/storage/emulated/0/DCIM/"));
+    }
+
+    @Test
+    public void extensionDot_isLastDotOfName() {
+        assertEquals(10, FileNames.extensionDot("/dir/a.b.c.jpg"));
+        assertEquals(-1, FileNames.extensionDot("/dir.d/readme"));
+        assertEquals(-1, FileNames.extensionDot("/dir/.nomedia"));
+        assertEquals(-1, FileNames.extensionDot(".nomedia"));
+        assertEquals(6, FileNames.extensionDot("/dir/a."));
+    }
+
+    @Test
+    public void getFileNameWithoutExt_returnsNameOnly() {
+        assertEquals("a.b", utils.getFileNameWithoutExt("/dir/a.b.jpg"));
+        assertEquals("readme", utils.getFileNameWithoutExt("/dir.d/readme"));
+        assertEquals(".nomedia", utils.getFileNameWithoutExt("/dir/.nomedia"));
+        assertEquals("a", utils.getFileNameWithoutExt("a.jpg"));
+        assertEquals("a", utils.getFileNameWithoutExt("a"));
+        assertNull(utils.getFileNameWithoutExt(null));
+    }
+
+    @Test
+    public void getFileExtension_isEmptyWithoutExtension() {
+        assertEquals(".jpg", utils.getFileExtension("/dir/a.b.jpg"));
+        assertEquals("", utils.getFileExtension("/dir.d/readme"));
+        assertEquals("", utils.getFileExtension("/dir/.nomedia"));
+        assertEquals(".", utils.getFileExtension("/dir/a."));
+        assertNull(utils.getFileExtension(null));
+    }
+
+    @Test
+    public void mimeType_ignoresCase() {
+        assertEquals("image/jpeg", FileNames.mimeType("/dir/a.jpg"));
+        assertEquals("image/jpeg", FileNames.mimeType("/dir/a.JPG"));
+        assertEquals("video/mp4", FileNames.mimeType("/dir/a.Mp4"));
+        assertEquals("application/vnd.android.package-archive", FileNames.mimeType("/dir/app.APK"));
+    }
+
+    @Test
+    public void mimeType_nullWithoutExtension() {
+        assertNull(FileNames.mimeType("/dir/readme"));
+        assertNull(FileNames.mimeType("/dir/.nomedia"));
+        assertNull(FileNames.mimeType("/dir/a."));
+        assertNull(utils.getFileMimeType(null));
+    }
+
+    @Test
+    public void mimeType_findsExtensionsOfEachGroup() {
+        String[][] types = {
+                {"jpeg", "image/jpeg"}, {"heic", "image/heic"}, {"svg", "image/svg+xml"},
+                {"3gp", "video/3gpp"}, {"3g2", "video/3gpp2"}, {"mkv", "video/x-matroska"}, {"ts", "video/mp2ts"},
+                {"mp3", "audio/mpeg"}, {"opus", "audio/ogg"}, {"midi", "audio/midi"},
+                {"pdf", "application/pdf"}, {"docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"},
+                {"7z", "application/x-7z-compressed"}, {"gz", "application/gzip"}};
+        for (String[] type : types) assertEquals(type[0], type[1], FileNames.mimeType("a." + type[0]));
+    }
+}
@@ -0,0 +1,132 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link LongMap}.
+ */
+public class LongMapTest {
+
+    @Test
+    public void put_replacesValueOfSameKey() {
+        LongMap<String> map = new LongMap<>();
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void put_growsBeyondExpectedSize() {
+        LongMap<Long> map = new LongMap<>(2);
+        for (long i = 0; i < 1000; i++) map.put(i * 31, i);
+        assertEquals(1000, map.size());
+        for (long i = 0; i < 1000; i++) assertEquals(Long.valueOf(i), map.get(i * 31));
+        assertNull(map.get(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void put_rejectsNullValue() {
+        new LongMap<String>().put(1, null);
+    }
+
+    @Test
+    public void remove_returnsOldValue() {
+        LongMap<String> map = new LongMap<>();
+        map.put(-1, "a");
+        assertEquals("a", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertFalse(map.containsKey(-1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void remove_keepsCollidingKeysReachable() {
+
+        //keys of last slot in a table of 8, so they probe into each other and wrap around
+        LongMap<Long> map = new LongMap<>(4);
+        long[] keys = new long[3];
+        int found = 0;
+
+        for (long key = 0; found < keys.length; key++) {
+            if (slot(key, 7) == 7) keys[found++] = key;
+        }
+
+        for (long key : keys) map.put(key, key);
+
+        map.remove(keys[0]);
+
+        assertNull(map.get(keys[0]));
+        assertEquals(Long.valueOf(keys[1]), map.get(keys[1]));
+        assertEquals(Long.valueOf(keys[2]), map.get(keys[2]));
+    }
+
+    @Test
+    public void remove_matchesHashMapUnderRandomOperations() {
+
+        Random random = new Random(42);
+        LongMap<Long> map = new LongMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(500) - 250;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -250; key < 250; key++) assertEquals(expected.get(key), map.get(key));
+    }
+
+    @Test
+    public void keys_returnsAllKeys() {
+        LongMap<String> map = new LongMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.remove(2);
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{1, 3}, keys);
+    }
+
+    @Test
+    public void copy_isIndependentOfOriginal() {
+        LongMap<String> map = new LongMap<>();
+        map.put(1, "a");
+        LongMap<String> copy = map.copy();
+        map.put(2, "b");
+        copy.remove(1);
+        assertEquals("a", map.get(1));
+        assertNull(copy.get(2));
+        assertEquals(0, copy.size());
+    }
+
+    @Test
+    public void clear_removesAllEntries() {
+        LongMap<String> map = new LongMap<>();
+        map.put(1, "a");
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+        map.put(1, "b");
+        assertEquals("b", map.get(1));
+    }
+
+    /**
+     * @return slot of key in a table with given mask, same hash as {@link LongMap}.
+     */
+    private static int slot(long key, int mask) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,130 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaAction;
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link MediaIndex}.
+ */
+public class MediaIndexTest {
+
+    private static final String STORE_VERSION = "1.0";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("media", ".index");
+    }
+
+    @After
+    public void tearDown() {
+        MediaIndex.delete(file);
+        MediaIndex.delete(new File(file.getPath() + ".tmp"));
+    }
+
+    @Test
+    public void read_returnsWrittenObjects() throws IOException {
+
+        List<MediaObject> objects = objects(3);
+        MediaIndex.write(file, MediaAction.Audio, STORE_VERSION, 7, 1000, 3, new long[]{1, 2, 3}, objects);
+
+        MediaIndex.Entry entry = MediaIndex.read(file, MediaAction.Audio, STORE_VERSION);
+
+        assertNotNull(entry);
+        assertEquals(7, entry.generation);
+        assertEquals(1000, entry.date);
+        assertEquals(3, entry.id);
+        assertArrayEquals(new long[]{1, 2, 3}, entry.ids);
+        assertEquals(3, entry.objects.length);
+
+        for (int i = 0; i < 3; i++) {
+            MediaObject expected = objects.get(i);
+            MediaObject actual = entry.objects[i];
+            assertEquals(expected.id, actual.id);
+            assertEquals(expected.name, actual.name);
+            assertEquals(expected.uri, actual.uri);
+            assertEquals(expected.bucketName, actual.bucketName);
+            assertEquals(expected.artist, actual.artist);
+            assertEquals(expected.size, actual.size);
+            assertEquals(expected.date, actual.date);
+            assertEquals(expected.duration, actual.duration);
+            assertNull(actual.album);
+        }
+    }
+
+    @Test
+    public void read_rejectsChangedPayload() throws IOException {
+
+        MediaIndex.write(file, MediaAction.Audio, STORE_VERSION, 7, 1000, 3, new long[]{1, 2, 3}, objects(3));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long position = raf.length() - 1;
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+
+        assertNull(MediaIndex.read(file, MediaAction.Audio, STORE_VERSION));
+    }
+
+    @Test
+    public void read_rejectsTruncatedFile() throws IOException {
+
+        MediaIndex.write(file, MediaAction.Audio, STORE_VERSION, 7, 1000, 3, new long[]{1, 2, 3}, objects(3));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        assertNull(MediaIndex.read(file, MediaAction.Audio, STORE_VERSION));
+    }
+
+    @Test
+    public void read_rejectsOtherActionOrStoreVersion() throws IOException {
+
+        MediaIndex.write(file, MediaAction.Audio, STORE_VERSION, 7, 1000, 3, new long[]{1, 2, 3}, objects(3));
+
+        assertNull(MediaIndex.read(file, MediaAction.Video, STORE_VERSION));
+        assertNull(MediaIndex.read(file, MediaAction.Audio, "2.0"));
+    }
+
+    @Test
+    public void read_returnsNullForMissingFile() {
+        MediaIndex.delete(file);
+        assertNull(MediaIndex.read(file, MediaAction.Audio, STORE_VERSION));
+    }
+
+    private static List<MediaObject> objects(int count) {
+
+        List<MediaObject> objects = new ArrayList<>();
+
+        for (int i = 1; i <= count; i++) {
+            MediaObject object = new MediaObject();
+            object.id = String.valueOf(i);
+            object.name = "Track " + i + ".mp3";
+            object.uri = "/sdcard/Music/" + object.name;
+            object.bucketName = "Music";
+            object.artist = "Artist \u00e9" + i;
+            object.size = i * 100L;
+            object.date = 1000L + i;
+            object.duration = i * 60000L;
+            objects.add(object);
+        }
+
+        return objects;
+    }
+}
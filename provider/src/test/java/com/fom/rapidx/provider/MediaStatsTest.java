@@ -0,0 +1,144 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link MediaStats}.
+ */
+public class MediaStatsTest {
+
+    private TimeZone zone;
+
+    @Before
+    public void setUp() {
+        zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(zone);
+    }
+
+    @Test
+    public void months_bucketByModificationMonth() {
+
+        MediaStats.Accumulator accumulator = new MediaStats.Accumulator();
+        accumulator.add(object(1, 10, seconds(2026, 1, 31, 23, 59)), false);
+        accumulator.add(object(2, 20, seconds(2026, 2, 1, 0, 0)), false);
+        accumulator.add(object(3, 30, seconds(2026, 2, 28, 12, 0)), false);
+        accumulator.add(object(4, 40, seconds(1969, 12, 31, 23, 0)), false);
+
+        MediaStats stats = accumulator.build(Collections.emptyList());
+
+        assertArrayEquals(new int[]{196912, 202601, 202602}, stats.getMonths());
+        assertEquals(1, stats.getMonthCount(202601));
+        assertEquals(2, stats.getMonthCount(202602));
+        assertEquals(50, stats.getMonthSize(202602));
+        assertEquals(40, stats.getMonthSize(196912));
+        assertEquals(0, stats.getMonthCount(202603));
+    }
+
+    @Test
+    public void months_useDefaultTimeZone() {
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+
+        //31st Jan 2026 20:00 UTC is 1st Feb 01:30 in India
+        MediaStats.Accumulator accumulator = new MediaStats.Accumulator();
+        accumulator.add(object(1, 10, seconds(2026, 1, 31, 20, 0)), false);
+
+        assertArrayEquals(new int[]{202602}, accumulator.build(Collections.emptyList()).getMonths());
+    }
+
+    @Test
+    public void months_matchCalendar() {
+
+        Random random = new Random(3);
+        String[] zones = {"UTC", "America/Los_Angeles", "Asia/Kolkata", "Pacific/Chatham"};
+
+        for (String id : zones) {
+
+            TimeZone.setDefault(TimeZone.getTimeZone(id));
+            MediaStats.Accumulator accumulator = new MediaStats.Accumulator();
+            Calendar calendar = Calendar.getInstance();
+
+            for (int i = 0; i < 2000; i++) {
+
+                //1900 to 2100
+                long seconds = (long) (random.nextDouble() * 6_311_390_400L) - 2_208_988_800L;
+                calendar.setTimeInMillis(seconds * 1000);
+                int month = calendar.get(Calendar.YEAR) * 100 + calendar.get(Calendar.MONTH) + 1;
+
+                accumulator.clear();
+                accumulator.add(object(i, 1, seconds), false);
+
+                assertArrayEquals(new int[]{month}, accumulator.build(Collections.emptyList()).getMonths());
+            }
+        }
+    }
+
+    @Test
+    public void remove_dropsEmptyMonthsAndTotals() {
+
+        MediaStats.Accumulator accumulator = new MediaStats.Accumulator();
+        MediaObject first = object(1, 10, seconds(2026, 3, 1, 0, 0));
+        MediaObject second = object(2, 20, seconds(2026, 4, 1, 0, 0));
+        accumulator.add(first, false);
+        accumulator.add(second, false);
+        accumulator.remove(first);
+
+        MediaStats stats = accumulator.build(Collections.singletonList(second));
+
+        assertArrayEquals(new int[]{202604}, stats.getMonths());
+        assertEquals(1, stats.getCount());
+        assertEquals(20, stats.getSize());
+        assertEquals(0, stats.getBucketCount("Camera"));
+        assertEquals(1, stats.getBucketCount("Screenshots"));
+        assertEquals(1, stats.getLargest().size());
+    }
+
+    @Test
+    public void largest_keepsLargestFirst() {
+
+        MediaStats.Accumulator accumulator = new MediaStats.Accumulator();
+        for (int i = 0; i < MediaStats.LARGEST_COUNT + 5; i++) accumulator.add(object(i, i, 0), false);
+
+        MediaStats stats = accumulator.build(Collections.emptyList());
+
+        assertEquals(MediaStats.LARGEST_COUNT, stats.getLargest().size());
+        assertEquals(MediaStats.LARGEST_COUNT + 4, stats.getLargest().get(0).size);
+        assertEquals(5, stats.getLargest().get(MediaStats.LARGEST_COUNT - 1).size);
+    }
+
+    /**
+     * @return seconds since epoch of a UTC date.
+     */
+    private static long seconds(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTimeInMillis() / 1000;
+    }
+
+    private static MediaObject object(int id, long size, long date) {
+        MediaObject object = new MediaObject();
+        object.id = String.valueOf(id);
+        object.bucketName = id % 2 == 0 ? "Screenshots" : "Camera";
+        object.mime = "image/jpeg";
+        object.size = size;
+        object.date = date;
+        return object;
+    }
+}
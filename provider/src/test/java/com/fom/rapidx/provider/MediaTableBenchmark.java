@@ -0,0 +1,105 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of holding scanned rows in a {@link MediaTable}, against a list of
+ * {@link MediaObject} with own strings per row like a cursor gives them.
+ */
+public class MediaTableBenchmark {
+
+    private static final int FOLDERS = 50;
+
+    @Test
+    public void holdRows() throws Exception {
+
+        int[] sizes = Benchmarks.isFull() ? new int[]{50_000, 200_000} : new int[]{10_000};
+
+        for (int size : sizes) {
+
+            ArrayList<MediaObject> list = objects(size);
+            MediaTable table = table(list);
+
+            assertEquals(list.size(), table.size());
+            MediaObject row = new MediaObject();
+            for (int i = 0; i < size; i++) {
+                assertEquals(list.get(i).toString(), table.get(i, row).toString());
+            }
+
+            long objects = retained(() -> objects(size));
+            long columns = retained(() -> table(objects(size))); //rows are built and dropped
+            System.out.println(String.format(Locale.ROOT
+                    , "retained %d rows: objects %.1f MB, table %.1f MB"
+                    , size, objects / 1e6, columns / 1e6));
+
+            Benchmarks.time("iterate objects, " + size + " rows", 5, () -> sumObjects(list));
+            Benchmarks.time("iterate table, " + size + " rows", 5, () -> sumTable(table));
+        }
+    }
+
+    /**
+     * Heap held by result of job, measured between full collections, so it is approximate.
+     */
+    private static long retained(Benchmarks.Job job) throws Exception {
+        long before = used();
+        Benchmarks.sink = job.run();
+        long after = used();
+        Benchmarks.sink = null;
+        return after - before;
+    }
+
+    private static long used() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long sumObjects(ArrayList<MediaObject> list) {
+        long sum = 0;
+        for (MediaObject object : list) sum += object.size + object.bucketName.length();
+        return sum;
+    }
+
+    private static long sumTable(MediaTable table) {
+        long sum = 0;
+        for (int i = 0; i < table.size(); i++) sum += table.getSize(i) + table.getBucketName(i).length();
+        return sum;
+    }
+
+    private static MediaTable table(ArrayList<MediaObject> list) {
+        MediaTable.Builder builder = new MediaTable.Builder(list.size());
+        for (MediaObject object : list) builder.add(object, Long.parseLong(object.id), -1);
+        return builder.build();
+    }
+
+    /**
+     * Repeating texts are new instances per row, like strings read from a cursor.
+     */
+    private static ArrayList<MediaObject> objects(int size) {
+        ArrayList<MediaObject> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MediaObject object = new MediaObject();
+            object.id = String.valueOf(i + 1);
+            object.name = "IMG_" + i + ".jpg";
+            object.bucketId = String.valueOf(i % FOLDERS);
+            object.bucketName = new String("Folder " + i % FOLDERS);
+            object.uri = "/storage/emulated/0/" + object.bucketName + "/" + object.name;
+            object.mime = new String("image/jpeg");
+            object.resolution = new String("4000x3000");
+            object.size = 1000L * i;
+            object.date = 1_700_000_000L - i;
+            list.add(object);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,95 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link MediaTable}.
+ */
+public class MediaTableTest {
+
+    @Test
+    public void build_keepsRowsOfAddedObjects() {
+
+        MediaTable.Builder builder = new MediaTable.Builder(1);
+
+        for (int i = 0; i < 100; i++) {
+            builder.add(object(i, i % 2 == 0 ? "Camera" : "Screenshots"), i, -1);
+        }
+
+        MediaTable table = builder.build();
+
+        assertEquals(100, table.size());
+
+        for (int i = 0; i < 100; i++) {
+            MediaObject object = table.get(i);
+            assertEquals(String.valueOf(i), object.id);
+            assertEquals("IMG_" + i + ".jpg", object.name);
+            assertEquals("/sdcard/DCIM/IMG_" + i + ".jpg", object.uri);
+            assertEquals(i % 2 == 0 ? "Camera" : "Screenshots", object.bucketName);
+            assertEquals("image/jpeg", object.mime);
+            assertEquals(i * 10L, object.size);
+            assertEquals(1000L + i, object.date);
+            assertEquals(i, table.getId(i));
+        }
+    }
+
+    @Test
+    public void build_encodesRepeatingTextsOnce() {
+
+        MediaTable.Builder builder = new MediaTable.Builder(4);
+        builder.add(object(1, "Camera"), 1, -1);
+        builder.add(object(2, "Camera"), 2, -1);
+        builder.add(object(3, null), 3, -1);
+
+        MediaTable table = builder.build();
+
+        assertEquals(table.getBucketCode(0), table.getBucketCode(1));
+        assertEquals(table.getMimeCode(0), table.getMimeCode(2));
+        assertEquals("Camera", table.decode(table.getBucketCode(0)));
+        assertEquals(0, table.getBucketCode(2));
+        assertNull(table.getBucketName(2));
+    }
+
+    @Test
+    public void get_reusesGivenObject() {
+
+        MediaTable.Builder builder = new MediaTable.Builder(2);
+        builder.add(object(1, "Camera"), 1, -1);
+        builder.add(object(2, "Music"), 2, -1);
+
+        MediaTable table = builder.build();
+        MediaObject object = new MediaObject();
+        object.selected = true;
+
+        assertSame(object, table.get(1, object));
+        assertEquals("Music", object.bucketName);
+        assertFalse(object.selected);
+    }
+
+    @Test
+    public void setArt_replacesArtOfRow() {
+
+        MediaTable.Builder builder = new MediaTable.Builder(1);
+        builder.add(object(1, "Music"), 1, 5);
+        builder.setArt(0, "/art/5.jpg");
+
+        assertEquals(5, builder.getAlbumId(0));
+        assertEquals("/art/5.jpg", builder.build().get(0).art);
+    }
+
+    private static MediaObject object(int id, String bucket) {
+        MediaObject object = new MediaObject();
+        object.id = String.valueOf(id);
+        object.name = "IMG_" + id + ".jpg";
+        object.uri = "/sdcard/DCIM/" + object.name;
+        object.bucketName = bucket;
+        object.mime = "image/jpeg";
+        object.size = id * 10L;
+        object.date = 1000L + id;
+        return object;
+    }
+}
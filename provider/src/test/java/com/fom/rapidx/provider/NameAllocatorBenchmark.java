@@ -0,0 +1,108 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of creating many copies of one name using {@link NameAllocator.Directory},
+ * against listing directory and searching its files for every copy like before.
+ */
+public class NameAllocatorBenchmark {
+
+    private static final String NAME = "IMG_0001.jpg";
+
+    @Test
+    public void allocateCopies() throws Exception {
+
+        int[] sizes = Benchmarks.isFull() ? new int[]{1_000, 2_000} : new int[]{300};
+
+        for (int size : sizes) {
+
+            File legacyDir = java.nio.file.Files.createTempDirectory("legacy").toFile();
+            File allocatorDir = java.nio.file.Files.createTempDirectory("allocator").toFile();
+
+            try {
+                long legacy = Benchmarks.time("list per copy, " + size + " copies", 1, () -> {
+                    clear(legacyDir);
+                    return createLegacy(legacyDir, size);
+                });
+                long counted = Benchmarks.time("directory counter, " + size + " copies", 1, () -> {
+                    clear(allocatorDir);
+                    return create(allocatorDir, size);
+                });
+
+                String[] expected = legacyDir.list();
+                String[] actual = allocatorDir.list();
+                assertNotNull(expected);
+                assertNotNull(actual);
+                Arrays.sort(expected);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual);
+                assertEquals(size, actual.length);
+
+                Benchmarks.speedUp(legacy, counted);
+            } finally {
+                clear(legacyDir);
+                clear(allocatorDir);
+                //noinspection ResultOfMethodCallIgnored
+                legacyDir.delete();
+                //noinspection ResultOfMethodCallIgnored
+                allocatorDir.delete();
+            }
+        }
+    }
+
+    private static int create(File directory, int count) throws IOException {
+        NameAllocator.Directory listed = new NameAllocator.Directory(directory.list());
+        for (int i = 0; i < count; i++) {
+            assertTrue(new File(directory, listed.next(directory.getPath(), NAME)).createNewFile());
+        }
+        return count;
+    }
+
+    /**
+     * Previous 'getUniqueFileName', which listed directory and searched it for each suffix.
+     */
+    private static int createLegacy(File directory, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            assertTrue(new File(uniqueLegacy(new File(directory, NAME).getPath())).createNewFile());
+        }
+        return count;
+    }
+
+    private static String uniqueLegacy(String filepath) {
+
+        File file = new File(filepath);
+
+        if (!file.exists()) return filepath;
+
+        String extension = filepath.substring(filepath.lastIndexOf('.'));
+        File[] listFiles = file.getParentFile().listFiles();
+
+        if (listFiles != null) {
+            List<File> files = Arrays.asList(listFiles);
+            int append = 0;
+            boolean flag = true;
+            while (flag) {
+                append++;
+                flag = files.contains(new File(filepath.replace(extension, "(" + append + ")" + extension)));
+            }
+            filepath = filepath.replace(extension, "(" + append + ")" + extension);
+        }
+
+        return filepath;
+    }
+
+    private static void clear(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        //noinspection ResultOfMethodCallIgnored
+        for (File file : files) file.delete();
+    }
+}
@@ -0,0 +1,97 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link NameAllocator.Directory}, the part of allocator which doesn't need
+ * android classes.
+ */
+public class NameAllocatorTest {
+
+    @Test
+    public void directory_countsFromHighestSuffix() {
+        NameAllocator.Directory directory = new NameAllocator.Directory(new String[]{
+                "a.jpg", "a(1).jpg", "a(7).jpg", "a(3).jpg", "b(2)", "b"});
+        assertEquals(Integer.valueOf(8), directory.counters.get("a.jpg"));
+        assertEquals(Integer.valueOf(3), directory.counters.get("b"));
+    }
+
+    @Test
+    public void directory_ignoresNamesWithoutNumericSuffix() {
+        NameAllocator.Directory directory = new NameAllocator.Directory(new String[]{
+                "a().jpg", "a(x).jpg", "(1).jpg", "a(1x).jpg", "a1).jpg", ".nomedia"});
+        assertTrue(directory.counters.isEmpty());
+    }
+
+    @Test
+    public void directory_ignoresSuffixTooLong() {
+        NameAllocator.Directory directory = new NameAllocator.Directory(new String[]{"a(12345678901).jpg"});
+        assertNull(directory.counters.get("a.jpg"));
+    }
+
+    @Test
+    public void directory_acceptsUnlistableDirectory() {
+        assertTrue(new NameAllocator.Directory(null).counters.isEmpty());
+    }
+
+    @Test
+    public void next_givesSameNameUntilItIsCreated() throws IOException {
+
+        File parent = java.nio.file.Files.createTempDirectory("allocator").toFile();
+        File existing = new File(parent, "a.txt");
+        assertTrue(existing.createNewFile());
+
+        try {
+            NameAllocator.Directory directory = new NameAllocator.Directory(parent.list());
+
+            assertEquals("b.txt", directory.next(parent.getPath(), "b.txt"));
+            assertEquals("b.txt", directory.next(parent.getPath(), "b.txt"));
+
+            assertEquals("a(1).txt", directory.next(parent.getPath(), "a.txt"));
+            assertEquals("a(1).txt", directory.next(parent.getPath(), "a.txt"));
+
+            assertTrue(new File(parent, "a(1).txt").createNewFile());
+            assertEquals("a(2).txt", directory.next(parent.getPath(), "a.txt"));
+        } finally {
+            delete(parent);
+        }
+    }
+
+    @Test
+    public void next_reusesFreedSuffixOfNewListing() throws IOException {
+
+        File parent = java.nio.file.Files.createTempDirectory("allocator").toFile();
+
+        try {
+            for (String name : new String[]{"a.txt", "a(1).txt", "a(2).txt"}) {
+                assertTrue(new File(parent, name).createNewFile());
+            }
+
+            NameAllocator.Directory directory = new NameAllocator.Directory(parent.list());
+            assertEquals("a(3).txt", directory.next(parent.getPath(), "a.txt"));
+
+            //deleted files are only seen by a new listing, see NameAllocator#invalidate(String)
+            assertTrue(new File(parent, "a(2).txt").delete());
+            assertTrue(new File(parent, "a(1).txt").delete());
+            directory = new NameAllocator.Directory(parent.list());
+            assertEquals("a(1).txt", directory.next(parent.getPath(), "a.txt"));
+        } finally {
+            delete(parent);
+        }
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            //noinspection ResultOfMethodCallIgnored
+            for (File file : files) file.delete();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+}
@@ -0,0 +1,40 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.Query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link Query}.
+ */
+public class QueryTest {
+
+    @Test
+    public void buckets_selectsByBucketId() {
+
+        Query query = new Query().buckets("12", "34");
+
+        assertEquals("(bucket_id IN (?,?))", query.getSelection());
+        assertArrayEquals(new String[]{"12", "34"}, query.getSelectionArgs());
+    }
+
+    @Test
+    public void buckets_selectsParentPathOfAudioBeforeQ() {
+
+        Query query = new Query().buckets("12", "/sdcard/Music [*]");
+
+        assertEquals("(bucket_id IN (?) OR (_data GLOB ? AND _data NOT GLOB ?))", query.getSelection());
+        assertArrayEquals(new String[]{"12", "/sdcard/Music [[][*]]/*", "/sdcard/Music [[][*]]/*/*"}
+                , query.getSelectionArgs());
+    }
+
+    @Test
+    public void getParentPath_returnsFolderOfPath() {
+        assertEquals("/sdcard/Music", Media.getParentPath("/sdcard/Music/song.mp3"));
+        assertEquals("Music", Media.getParentName("/sdcard/Music/song.mp3"));
+        assertNull(Media.getParentPath("/song.mp3"));
+        assertNull(Media.getParentPath(null));
+    }
+}
@@ -0,0 +1,105 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaObject;
+import com.fom.rapidx.provider.Media.SyncState;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of saving scanned objects into {@link SyncState} with folders sorted once,
+ * against de-duplication by list scan and a folder sort per object like before.
+ */
+public class SaveObjectBenchmark {
+
+    private static final int FOLDERS = 20;
+    private static final Comparator<MediaObject> BY_NAME = (o1, o2) -> o1.name.compareTo(o2.name);
+
+    @Test
+    public void saveObjects() throws Exception {
+
+        int[] sizes = Benchmarks.isFull() ? new int[]{10_000, 50_000, 100_000} : new int[]{1_000, 5_000};
+
+        for (int size : sizes) {
+
+            MediaObject[] objects = objects(size);
+
+            HashMap<String, ArrayList<MediaObject>> before = saveLegacy(objects);
+            HashMap<String, ArrayList<MediaObject>> after = save(objects);
+            assertEquals(before, after);
+
+            long legacy = Benchmarks.time("list scan and sort per object, " + size + " objects", 1
+                    , () -> saveLegacy(objects));
+            long indexed = Benchmarks.time("id index and sort per folder, " + size + " objects", 3
+                    , () -> save(objects));
+
+            Benchmarks.speedUp(legacy, indexed);
+        }
+    }
+
+    /**
+     * Objects are saved twice, like a row read again, so de-duplication is part of timing.
+     */
+    private static HashMap<String, ArrayList<MediaObject>> save(MediaObject[] objects) {
+
+        SyncState state = new SyncState();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (MediaObject object : objects) {
+                if (state.save(object, Media.parseId(object), null) != null) continue;
+                ArrayList<MediaObject> list = state.map.get(object.bucketName);
+                if (list == null) state.map.put(object.bucketName, list = new ArrayList<>());
+                list.add(object);
+            }
+        }
+
+        for (ArrayList<MediaObject> list : state.map.values()) Collections.sort(list, BY_NAME);
+
+        return state.map;
+    }
+
+    /**
+     * Previous save, which searched list for object and sorted its folder after each insert.
+     */
+    private static HashMap<String, ArrayList<MediaObject>> saveLegacy(MediaObject[] objects) {
+
+        ArrayList<MediaObject> all = new ArrayList<>();
+        HashMap<String, ArrayList<MediaObject>> map = new HashMap<>();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (MediaObject object : objects) {
+                ArrayList<MediaObject> list = map.get(object.bucketName);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    list.add(object);
+                    map.put(object.bucketName, list);
+                } else if (!list.contains(object)) {
+                    list.add(object);
+                    Collections.sort(list, BY_NAME);
+                }
+                if (!all.contains(object)) all.add(object);
+            }
+        }
+
+        return map;
+    }
+
+    private static MediaObject[] objects(int size) {
+        MediaObject[] objects = new MediaObject[size];
+        for (int i = 0; i < size; i++) {
+            MediaObject object = new MediaObject();
+            object.id = String.valueOf(i + 1);
+            object.name = "IMG_" + Integer.toHexString(i * 0x9E3779B1) + ".jpg"; //names out of id order
+            object.bucketName = "Folder " + i % FOLDERS;
+            object.date = 1_700_000_000L - i;
+            objects[i] = object;
+        }
+        return objects;
+    }
+}
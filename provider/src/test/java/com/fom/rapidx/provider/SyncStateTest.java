@@ -0,0 +1,240 @@
+package com.fom.rapidx.provider;
+
+import com.fom.rapidx.provider.Media.MediaAction;
+import com.fom.rapidx.provider.Media.MediaObject;
+import com.fom.rapidx.provider.Media.Query;
+import com.fom.rapidx.provider.Media.SortOrder;
+import com.fom.rapidx.provider.Media.SyncState;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link SyncState}, objects saved after a scan must be where
+ * a full scan would place them and recorded operations must give that list.
+ */
+public class SyncStateTest {
+
+    @Test
+    public void save_insertsNewestFirst() {
+
+        SyncState state = new SyncState();
+        SortOrder order = SortOrder.newest();
+
+        save(state, object(1, 100), order);
+        save(state, object(2, 300), order);
+        save(state, object(3, 200), order);
+        save(state, object(4, 300), order); //same date, higher id first
+
+        assertEquals(ids(4, 2, 3, 1), ids(state.list));
+        assertPositions(state);
+    }
+
+    @Test
+    public void save_appendsWithoutOrder() {
+
+        SyncState state = new SyncState();
+
+        save(state, object(1, 100), null);
+        save(state, object(2, 300), null);
+
+        assertEquals(ids(1, 2), ids(state.list));
+    }
+
+    @Test
+    public void save_movesObjectWhoseDateChanged() {
+
+        SyncState state = new SyncState();
+        SortOrder order = SortOrder.newest();
+
+        for (int id = 1; id <= 5; id++) save(state, object(id, id * 100), order);
+
+        MediaSnapshot snapshot = publish(state);
+        state.startRecording(snapshot);
+
+        save(state, object(2, 900), order); //edited, now newest
+        save(state, object(6, 50), order); //old photo copied in
+
+        ChangeSet changes = state.getRecordedChanges(snapshot);
+        state.stopRecording();
+
+        assertEquals(ids(2, 5, 4, 3, 1, 6), ids(state.list));
+        assertPositions(state);
+        assertEquals(ids(2, 5, 4, 3, 1, 6), apply(changes, snapshot.getList(), state.list));
+    }
+
+    @Test
+    public void save_keepsUnchangedObjectInPlace() {
+
+        SyncState state = new SyncState();
+        SortOrder order = SortOrder.newest();
+
+        for (int id = 1; id <= 3; id++) save(state, object(id, id * 100), order);
+
+        MediaSnapshot snapshot = publish(state);
+        state.startRecording(snapshot);
+        save(state, object(2, 200), order);
+
+        assertTrue(state.getRecordedChanges(snapshot).isEmpty());
+        state.stopRecording();
+    }
+
+    @Test
+    public void save_insertsBySortOfQuery() {
+
+        SyncState state = new SyncState();
+        SortOrder order = SortOrder.of(new Query().sortBy(Query.Sort.Size, true));
+
+        for (int id = 1; id <= 4; id++) save(state, object(id, 100, id * 10), order);
+
+        MediaSnapshot snapshot = publish(state);
+        state.startRecording(snapshot);
+
+        save(state, object(5, 100, 25), order);
+        save(state, object(6, 100, 20), order); //same size, higher id first
+        save(state, object(1, 100, 50), order); //grown, now largest
+
+        ChangeSet changes = state.getRecordedChanges(snapshot);
+        state.stopRecording();
+
+        assertEquals(ids(6, 2, 5, 3, 4, 1), ids(state.list));
+        assertPositions(state);
+        assertEquals(ids(6, 2, 5, 3, 4, 1), apply(changes, snapshot.getList(), state.list));
+    }
+
+    @Test
+    public void save_randomChangesMatchFullScan() {
+        randomChanges(SortOrder.newest());
+    }
+
+    @Test
+    public void save_randomChangesMatchFullScanOfQuery() {
+        randomChanges(SortOrder.of(new Query()
+                .sortBy(Query.Sort.Name, true)
+                .sortBy(Query.Sort.Size, false)));
+    }
+
+    private static void randomChanges(SortOrder order) {
+
+        Random random = new Random(11);
+
+        for (int round = 0; round < 200; round++) {
+
+            SyncState state = new SyncState();
+            for (int id = 1; id <= 30; id++) save(state, random(random, id), order);
+
+            MediaSnapshot snapshot = publish(state);
+            state.startRecording(snapshot);
+
+            for (int i = 0; i < 10; i++) {
+                save(state, random(random, 1 + random.nextInt(40)), order);
+            }
+
+            ChangeSet changes = state.getRecordedChanges(snapshot);
+            state.stopRecording();
+
+            ArrayList<MediaObject> scanned = new ArrayList<>(state.list);
+            Collections.sort(scanned, order);
+
+            assertEquals(ids(scanned), ids(state.list));
+            assertPositions(state);
+            assertEquals(ids(state.list), apply(changes, snapshot.getList(), state.list));
+        }
+    }
+
+    private static void save(SyncState state, MediaObject object, SortOrder order) {
+        state.save(object, Long.parseLong(object.id), order);
+    }
+
+    private static MediaSnapshot publish(SyncState state) {
+        MediaSnapshot snapshot = new MediaSnapshot(MediaAction.Images, state.list, state.map);
+        state.published(snapshot);
+        return snapshot;
+    }
+
+    private static void assertPositions(SyncState state) {
+        for (int i = 0; i < state.list.size(); i++) {
+            assertEquals(Integer.valueOf(i), state.positions.get(Media.parseId(state.list.get(i))));
+        }
+    }
+
+    /**
+     * @return ids of old list after operations, inserted and changed positions take id of new list.
+     */
+    private static List<String> apply(ChangeSet changes, List<MediaObject> oldList, List<MediaObject> newList) {
+
+        assertFalse(changes.isReload());
+
+        ArrayList<String> list = new ArrayList<>(ids(oldList));
+
+        changes.dispatchTo(new ChangeSet.Callback() {
+
+            @Override
+            public void onInserted(int position, int count) {
+                for (int i = 0; i < count; i++) list.add(position, "*");
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                for (int i = 0; i < count; i++) list.remove(position);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                list.add(toPosition, list.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                for (int i = 0; i < count; i++) list.set(position + i, "*");
+            }
+        });
+
+        for (int i = 0; i < list.size() && i < newList.size(); i++) {
+            if (list.get(i).equals("*")) list.set(i, newList.get(i).id);
+        }
+
+        return list;
+    }
+
+    private static MediaObject object(long id, long date) {
+        MediaObject object = new MediaObject();
+        object.id = String.valueOf(id);
+        object.name = "IMG_" + id + ".jpg";
+        object.date = date;
+        return object;
+    }
+
+    private static MediaObject object(long id, long date, long size) {
+        MediaObject object = object(id, date);
+        object.size = size;
+        return object;
+    }
+
+    /**
+     * @return object with few distinct names, sizes and dates, so sort keys often tie.
+     */
+    private static MediaObject random(Random random, long id) {
+        MediaObject object = object(id, random.nextInt(20), random.nextInt(5));
+        object.name = random.nextInt(8) == 0 ? null : "IMG_" + random.nextInt(6) + ".jpg";
+        return object;
+    }
+
+    private static List<String> ids(List<MediaObject> objects) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (MediaObject object : objects) ids.add(object.id);
+        return ids;
+    }
+
+    private static List<String> ids(long... values) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (long value : values) ids.add(String.valueOf(value));
+        return ids;
+    }
+}
@@ -0,0 +1,103 @@
+package com.fom.rapidx.provider;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local benchmark of file copy through {@link Files.Utils#transfer(InputStream, OutputStream)},
+ * against the 1 KB buffer loop it replaced.
+ */
+public class TransferBenchmark {
+
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    public void copyFile() throws Exception {
+
+        int[] sizes = Benchmarks.isFull() ? new int[]{MB, 100 * MB, 1024 * MB} : new int[]{MB, 16 * MB};
+
+        for (int size : sizes) {
+
+            File input = File.createTempFile("benchmark", ".in");
+            File output = File.createTempFile("benchmark", ".out");
+
+            try {
+                write(input, size);
+                String expected = digest(input);
+                int runs = size > 16 * MB ? 1 : 5;
+
+                long legacy = Benchmarks.time("1 KB loop, " + size / MB + " MB", runs
+                        , () -> copyLegacy(input, output));
+                assertEquals(expected, digest(output));
+
+                long channel = Benchmarks.time("transfer, " + size / MB + " MB", runs
+                        , () -> copy(input, output));
+                assertEquals(expected, digest(output));
+
+                Benchmarks.speedUp(legacy, channel);
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                input.delete();
+                //noinspection ResultOfMethodCallIgnored
+                output.delete();
+            }
+        }
+    }
+
+    private static long copy(File input, File output) throws IOException {
+        try (InputStream in = new FileInputStream(input);
+             OutputStream out = new FileOutputStream(output)) {
+            return Files.Utils.transfer(in, out);
+        }
+    }
+
+    /**
+     * Previous copy of 'writeFile'.
+     */
+    private static long copyLegacy(File input, File output) throws IOException {
+        long total = 0;
+        try (InputStream in = new FileInputStream(input);
+             OutputStream out = new FileOutputStream(output)) {
+            byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                out.write(buf, 0, len);
+                total += len;
+            }
+        }
+        return total;
+    }
+
+    private static void write(File file, int size) throws IOException {
+        byte[] chunk = new byte[MB];
+        Random random = new Random(size);
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+        }
+    }
+
+    private static String digest(File file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] buf = new byte[MB];
+        try (InputStream in = new FileInputStream(file)) {
+            int len;
+            while ((len = in.read(buf)) > 0) digest.update(buf, 0, len);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
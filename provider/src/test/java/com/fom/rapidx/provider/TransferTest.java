@@ -0,0 +1,139 @@
+package com.fom.rapidx.provider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit test of {@link Files.Utils#transfer(InputStream, OutputStream)}
+ * and file copy built on it.
+ */
+public class TransferTest {
+
+    private File input;
+    private File output;
+
+    @Before
+    public void setUp() throws IOException {
+        input = File.createTempFile("transfer", ".in");
+        output = File.createTempFile("transfer", ".out");
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        input.delete();
+        //noinspection ResultOfMethodCallIgnored
+        output.delete();
+    }
+
+    @Test
+    public void transfer_copiesFileToFile() throws IOException {
+
+        byte[] data = write(input, 3 * 1024 * 1024 + 17);
+
+        try (FileInputStream in = new FileInputStream(input);
+             FileOutputStream out = new FileOutputStream(output)) {
+            assertEquals(data.length, Files.Utils.transfer(in, out));
+        }
+
+        assertArrayEquals(data, read(output));
+    }
+
+    @Test
+    public void transfer_copiesRemainingBytesOnly() throws IOException {
+
+        byte[] data = write(input, 1000);
+
+        try (FileInputStream in = new FileInputStream(input);
+             FileOutputStream out = new FileOutputStream(output)) {
+            assertEquals(100, in.skip(100));
+            assertEquals(900, Files.Utils.remaining(in));
+            assertEquals(900, Files.Utils.transfer(in, out));
+            assertEquals(0, Files.Utils.remaining(in));
+        }
+
+        byte[] copied = read(output);
+        assertEquals(900, copied.length);
+        assertEquals(data[100], copied[0]);
+        assertEquals(data[999], copied[899]);
+    }
+
+    @Test
+    public void transfer_copiesStreamsThroughBuffer() throws IOException {
+
+        byte[] data = new byte[600 * 1024 + 3];
+        new Random(1).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(-1, Files.Utils.remaining(new ByteArrayInputStream(data)));
+        assertEquals(data.length, Files.Utils.transfer(new ByteArrayInputStream(data), out));
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void transfer_copiesFileIntoStream() throws IOException {
+
+        byte[] data = write(input, 5000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (FileInputStream in = new FileInputStream(input)) {
+            assertEquals(data.length, Files.Utils.transfer(in, out));
+        }
+
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void transfer_stopsWhenListenerReturnsFalse() throws IOException {
+
+        byte[] data = new byte[2 * 1024 * 1024];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = Files.Utils.transfer(new ByteArrayInputStream(data), out, bytes -> false);
+
+        assertTrue(written > 0);
+        assertTrue(written < data.length);
+    }
+
+    @Test
+    public void writeFile_copiesFile() throws IOException {
+
+        byte[] data = write(input, 12345);
+
+        assertTrue(new Files.Utils().writeFile(input, output));
+        assertArrayEquals(data, read(output));
+    }
+
+    @Test
+    public void writeFile_failsForMissingInput() {
+        //noinspection ResultOfMethodCallIgnored
+        input.delete();
+        assertFalse(new Files.Utils().writeFile(input, output));
+    }
+
+    private static byte[] read(File file) throws IOException {
+        return java.nio.file.Files.readAllBytes(file.toPath());
+    }
+
+    private static byte[] write(File file, int length) throws IOException {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return data;
+    }
+}
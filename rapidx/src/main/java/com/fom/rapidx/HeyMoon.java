@@ -2,6 +2,7 @@ package com.fom.rapidx;
 
 import com.fom.rapidx.provider.Dialogs;
 import com.fom.rapidx.provider.Directory;
+import com.fom.rapidx.provider.Duplicates;
 import com.fom.rapidx.provider.Files;
 import com.fom.rapidx.provider.Media;
 import com.fom.rapidx.ui.UI;
@@ -75,4 +76,14 @@ public class HeyMoon {
     public static Media media() {
         return new Media();
     }
+
+    /**
+     * {@link Duplicates} class constructor.
+     * A class to find duplicate files among media objects.
+     *
+     * @since 1.0
+     */
+    public static Duplicates duplicates() {
+        return new Duplicates();
+    }
 }